@@ -0,0 +1,131 @@
+package org.ecommerce.benchmark;
+
+import org.ecommerce.CheckoutPipeline;
+import org.ecommerce.InventoryService;
+import org.ecommerce.MetricsRegistry;
+import org.ecommerce.NotificationService;
+import org.ecommerce.Order;
+import org.ecommerce.OrderHistoryService;
+import org.ecommerce.Product;
+import org.ecommerce.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Compares the hand-stitched synchronous checkout against the staged pipeline, both one order at
+// a time and with a burst in flight, where stages overlap across orders and drain in batches.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CheckoutPipelineBenchmark {
+  private static final int STOCK_PER_PRODUCT = 1_000_000_000;
+  private static final int BURST = 64;
+
+  @Param({"1", "5"})
+  int cartSize;
+
+  @Param({"1024"})
+  int capacity;
+
+  Product[] catalog;
+  User[] users;
+  InventoryService inventoryService;
+  OrderHistoryService orderHistoryService;
+  NotificationService notificationService;
+  CheckoutPipeline pipeline;
+
+  @Setup(Level.Trial)
+  public void setUpCatalog() {
+    catalog = Fixtures.catalog(1000);
+    users = Fixtures.users(256, "MIXED");
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpServices() {
+    inventoryService = new InventoryService();
+    for (Product product : catalog) {
+      inventoryService.addProduct(product, STOCK_PER_PRODUCT);
+    }
+    orderHistoryService = new OrderHistoryService();
+    notificationService = new NotificationService();
+    notificationService.addObserver((order, status) -> {});
+    pipeline =
+        new CheckoutPipeline(
+            inventoryService,
+            orderHistoryService,
+            notificationService,
+            capacity,
+            new MetricsRegistry());
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDownServices() throws InterruptedException {
+    pipeline.shutdown();
+  }
+
+  @State(Scope.Thread)
+  public static class Checkouts {
+    Random random;
+    long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      random = new Random(Thread.currentThread().threadId());
+    }
+
+    String nextId() {
+      return Thread.currentThread().threadId() + "-" + next++;
+    }
+  }
+
+  @Benchmark
+  public Order handStitched(Checkouts state) {
+    Order order =
+        new Order(
+            state.nextId(),
+            Fixtures.cart(
+                users[state.random.nextInt(users.length)], catalog, cartSize, state.random));
+    if (!inventoryService.processOrder(order)) {
+      order.setStatus(Order.Status.CANCELLED);
+    }
+    orderHistoryService.addOrder(order);
+    notificationService.notifyOrderStatusChange(order, order.getStatus());
+    return order;
+  }
+
+  @Benchmark
+  public Order pipelined(Checkouts state) {
+    return pipeline
+        .checkout(
+            state.nextId(),
+            Fixtures.cart(
+                users[state.random.nextInt(users.length)], catalog, cartSize, state.random))
+        .join();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public Object pipelinedBurst(Checkouts state) {
+    CompletableFuture<?>[] results = new CompletableFuture<?>[BURST];
+    for (int i = 0; i < BURST; i++) {
+      results[i] =
+          pipeline.checkout(
+              state.nextId(),
+              Fixtures.cart(
+                  users[state.random.nextInt(users.length)], catalog, cartSize, state.random));
+    }
+    return CompletableFuture.allOf(results).join();
+  }
+}
@@ -0,0 +1,83 @@
+package org.ecommerce.benchmark;
+
+import org.ecommerce.DiscountService;
+import org.ecommerce.Product;
+import org.ecommerce.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DiscountServiceBenchmark {
+
+  @Param({"100", "10000"})
+  int catalogSize;
+
+  @Param({"REGULAR", "PREMIUM", "MIXED"})
+  String userMix;
+
+  @Param({"false", "true"})
+  boolean combineDiscounts;
+
+  @Param({"0", "16384"})
+  int priceCacheSize;
+
+  private DiscountService discountService;
+  private Product[] catalog;
+  private User[] users;
+  private double[] prices;
+  private double[] factors;
+  private double[] out;
+
+  @Setup
+  public void setUp() {
+    catalog = Fixtures.catalog(catalogSize);
+    users = Fixtures.users(64, userMix);
+    discountService = new DiscountService(Clock.systemUTC(), priceCacheSize);
+    discountService.setDiscountCombinationEnabled(combineDiscounts);
+    for (int i = 0; i < catalogSize; i += 10) {
+      discountService.addPromotionalProduct(catalog[i].getId(), 20.0);
+    }
+    prices = new double[catalogSize];
+    for (int i = 0; i < catalogSize; i++) {
+      prices[i] = catalog[i].getPrice();
+    }
+    factors = new double[catalogSize];
+    discountService.getDiscountFactors(catalog, User.Type.PREMIUM, factors);
+    out = new double[catalogSize];
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Benchmark
+  public double calculateDiscountedPrice(Cursor cursor) {
+    int index = cursor.next++;
+    return discountService.calculateDiscountedPrice(
+        catalog[index % catalog.length], users[index & (users.length - 1)]);
+  }
+
+  @Benchmark
+  public double[] calculateDiscountedPricesForCatalog() {
+    discountService.calculateDiscountedPrices(catalog, User.Type.PREMIUM, out);
+    return out;
+  }
+
+  @Benchmark
+  public double[] applyPrecomputedFactors() {
+    DiscountService.calculateDiscountedPrices(prices, factors, out);
+    return out;
+  }
+}
@@ -0,0 +1,70 @@
+package org.ecommerce.benchmark;
+
+import org.ecommerce.Order;
+import org.ecommerce.Product;
+import org.ecommerce.ProductCatalog;
+import org.ecommerce.ShoppingCart;
+import org.ecommerce.User;
+
+import java.util.Random;
+
+final class Fixtures {
+  static final long SEED = 42L;
+
+  private Fixtures() {}
+
+  static Product[] catalog(int size) {
+    Random random = new Random(SEED);
+    Product[] products = new Product[size];
+    for (int i = 0; i < size; i++) {
+      products[i] = new Product("prod" + i, "Product " + i, 1 + random.nextInt(50000) / 100.0);
+    }
+    return products;
+  }
+
+  static Product[] catalog(int size, boolean registered) {
+    Product[] products = catalog(size);
+    if (registered) {
+      ProductCatalog catalog = new ProductCatalog();
+      for (Product product : products) {
+        catalog.register(product);
+      }
+    }
+    return products;
+  }
+
+  static User[] users(int count, String userMix) {
+    Random random = new Random(SEED);
+    User[] users = new User[count];
+    for (int i = 0; i < count; i++) {
+      users[i] =
+          new User("user" + i, "user" + i, "user" + i + "@example.com", typeFor(userMix, random));
+    }
+    return users;
+  }
+
+  static Order order(String id, User user, Product[] catalog, int lines, Random random) {
+    return new Order(id, cart(user, catalog, lines, random));
+  }
+
+  static ShoppingCart cart(User user, Product[] catalog, int lines, Random random) {
+    ShoppingCart cart = new ShoppingCart(user);
+    for (int i = 0; i < lines; i++) {
+      cart.addProduct(catalog[random.nextInt(catalog.length)], 1 + random.nextInt(3));
+    }
+    return cart;
+  }
+
+  private static User.Type typeFor(String userMix, Random random) {
+    switch (userMix) {
+      case "REGULAR":
+        return User.Type.REGULAR;
+      case "PREMIUM":
+        return User.Type.PREMIUM;
+      case "MIXED":
+        return random.nextInt(4) == 0 ? User.Type.PREMIUM : User.Type.REGULAR;
+      default:
+        throw new IllegalArgumentException("Unknown user mix: " + userMix);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package org.ecommerce.benchmark;
+
+import org.ecommerce.InventoryLog;
+import org.ecommerce.InventoryService;
+import org.ecommerce.Order;
+import org.ecommerce.Product;
+import org.ecommerce.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Throughput shows how many mutations group commit folds into each fsync as threads are added;
+// sample time reports the commit latency distribution a caller waits for its record to be durable.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InventoryLogBenchmark {
+  private static final int STOCK_PER_PRODUCT = 1_000_000_000;
+  private static final int ORDERS_PER_THREAD = 1024;
+
+  @Param({"1", "5"})
+  int cartSize;
+
+  @Param({"false", "true"})
+  boolean durable;
+
+  Path directory;
+  InventoryLog log;
+  InventoryService inventoryService;
+  Product[] catalog;
+  User[] users;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    catalog = Fixtures.catalog(1000);
+    users = Fixtures.users(64, "MIXED");
+    directory = Files.createTempDirectory("inventory-log-benchmark");
+    log = durable ? InventoryLog.open(directory) : null;
+    inventoryService = durable ? new InventoryService(log) : new InventoryService();
+    for (Product product : catalog) {
+      inventoryService.addProduct(product, STOCK_PER_PRODUCT);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    if (log != null) {
+      log.close();
+    }
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Orders {
+    Order[] orders;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp(InventoryLogBenchmark benchmark) {
+      Random random = new Random(Thread.currentThread().threadId());
+      orders = new Order[ORDERS_PER_THREAD];
+      for (int i = 0; i < orders.length; i++) {
+        User user = benchmark.users[random.nextInt(benchmark.users.length)];
+        orders[i] =
+            Fixtures.order("order" + i, user, benchmark.catalog, benchmark.cartSize, random);
+      }
+    }
+  }
+
+  @Benchmark
+  public boolean processOrder(Orders state) {
+    return inventoryService.processOrder(state.orders[state.next++ & (ORDERS_PER_THREAD - 1)]);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public boolean processOrderContended(Orders state) {
+    return inventoryService.processOrder(state.orders[state.next++ & (ORDERS_PER_THREAD - 1)]);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void takeSnapshotUnderLoad(Orders state) {
+    // Every 1024th operation snapshots while the other threads keep mutating, so the cost of the
+    // stop-the-world copy and log rotation shows up in their commit latency.
+    int next = state.next++;
+    if (durable && (next & 1023) == 0) {
+      inventoryService.takeSnapshot();
+    } else {
+      inventoryService.processOrder(state.orders[next & (ORDERS_PER_THREAD - 1)]);
+    }
+  }
+}
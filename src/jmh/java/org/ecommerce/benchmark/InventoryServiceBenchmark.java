@@ -0,0 +1,107 @@
+package org.ecommerce.benchmark;
+
+import org.ecommerce.InventoryService;
+import org.ecommerce.Order;
+import org.ecommerce.Product;
+import org.ecommerce.Reservation;
+import org.ecommerce.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InventoryServiceBenchmark {
+  private static final int STOCK_PER_PRODUCT = 1_000_000_000;
+  private static final int ORDERS_PER_THREAD = 1024;
+
+  @Param({"100", "10000"})
+  int catalogSize;
+
+  @Param({"1", "5", "20"})
+  int cartSize;
+
+  @Param({"REGULAR", "MIXED"})
+  String userMix;
+
+  @Param({"false", "true"})
+  boolean catalogued;
+
+  // Stock stays far above the watermark, so this measures the per-change level check alone.
+  @Param({"false", "true"})
+  boolean stockLevelEvents;
+
+  InventoryService inventoryService;
+  Product[] catalog;
+  User[] users;
+
+  @Setup(Level.Trial)
+  public void setUpCatalog() {
+    catalog = Fixtures.catalog(catalogSize, catalogued);
+    users = Fixtures.users(64, userMix);
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpInventory() {
+    inventoryService = new InventoryService();
+    for (Product product : catalog) {
+      inventoryService.addProduct(product, STOCK_PER_PRODUCT);
+    }
+    if (stockLevelEvents) {
+      inventoryService.startStockLevelEvents(10, Duration.ofSeconds(1));
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDownInventory() throws InterruptedException {
+    inventoryService.stopStockLevelEvents();
+  }
+
+  @State(Scope.Thread)
+  public static class Orders {
+    Order[] orders;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp(InventoryServiceBenchmark benchmark) {
+      Random random = new Random(Thread.currentThread().threadId());
+      orders = new Order[ORDERS_PER_THREAD];
+      for (int i = 0; i < orders.length; i++) {
+        User user = benchmark.users[random.nextInt(benchmark.users.length)];
+        orders[i] =
+            Fixtures.order("order" + i, user, benchmark.catalog, benchmark.cartSize, random);
+      }
+    }
+  }
+
+  @Benchmark
+  public boolean processOrder(Orders state) {
+    Order order = state.orders[state.next++ & (ORDERS_PER_THREAD - 1)];
+    boolean processed = inventoryService.processOrder(order);
+    if (!processed) {
+      for (Product product : order.getItems().keySet()) {
+        inventoryService.addProduct(product, STOCK_PER_PRODUCT);
+      }
+    }
+    return processed;
+  }
+
+  @Benchmark
+  public boolean reserveAndRelease(Orders state) {
+    Order order = state.orders[state.next++ & (ORDERS_PER_THREAD - 1)];
+    Reservation reservation = inventoryService.reserve(order);
+    return reservation != null && inventoryService.release(reservation);
+  }
+}
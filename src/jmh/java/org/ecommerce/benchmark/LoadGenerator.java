@@ -0,0 +1,177 @@
+package org.ecommerce.benchmark;
+
+import org.ecommerce.DiscountService;
+import org.ecommerce.HistogramSnapshot;
+import org.ecommerce.InventoryService;
+import org.ecommerce.LatencyHistogram;
+import org.ecommerce.Order;
+import org.ecommerce.Product;
+import org.ecommerce.ShoppingCart;
+import org.ecommerce.User;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// End-to-end load harness: every simulated shopper is a virtual thread that quotes Zipfian-chosen
+// products through DiscountService, fills a cart, and checks it out against InventoryService,
+// pausing for an exponentially distributed think time between actions. Unlike the JMH benchmarks
+// it measures the services under realistic contention rather than in isolation.
+public class LoadGenerator {
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+  private static final String[] PERCENTILE_LABELS = {"p50", "p90", "p99", "p99.9"};
+
+  private final int users;
+  private final Duration duration;
+  private final long thinkTimeMillis;
+  private final int cartSize;
+  private final Product[] catalog;
+  private final ZipfianSampler popularity;
+  private final DiscountService discountService;
+  private final InventoryService inventoryService;
+  private final LatencyHistogram quoteLatency;
+  private final LatencyHistogram checkoutLatency;
+  private final LongAdder processedOrders;
+  private final LongAdder rejectedOrders;
+  private volatile boolean running;
+
+  public LoadGenerator(Map<String, String> options) {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put("users", "1000");
+    settings.put("durationSeconds", "30");
+    settings.put("thinkTimeMillis", "10");
+    settings.put("catalogSize", "1000");
+    settings.put("skew", "0.99");
+    settings.put("cartSize", "3");
+    settings.put("stock", "1000000");
+    for (Map.Entry<String, String> option : options.entrySet()) {
+      if (!settings.containsKey(option.getKey())) {
+        throw new IllegalArgumentException("Unknown option: " + option.getKey());
+      }
+      settings.put(option.getKey(), option.getValue());
+    }
+
+    this.users = positive(settings, "users");
+    this.duration = Duration.ofSeconds(positive(settings, "durationSeconds"));
+    this.thinkTimeMillis = Long.parseLong(settings.get("thinkTimeMillis"));
+    this.cartSize = positive(settings, "cartSize");
+    this.catalog = Fixtures.catalog(positive(settings, "catalogSize"));
+    this.popularity =
+        new ZipfianSampler(catalog.length, Double.parseDouble(settings.get("skew")));
+    this.discountService = new DiscountService();
+    this.inventoryService = new InventoryService();
+    int stock = positive(settings, "stock");
+    for (Product product : catalog) {
+      inventoryService.addProduct(product, stock);
+    }
+    this.quoteLatency = new LatencyHistogram("load.quote.latency");
+    this.checkoutLatency = new LatencyHistogram("load.checkout.latency");
+    this.processedOrders = new LongAdder();
+    this.rejectedOrders = new LongAdder();
+    System.out.println("Load settings: " + settings);
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    Map<String, String> options = new LinkedHashMap<>();
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("Expected key=value but got: " + arg);
+      }
+      options.put(arg.substring(0, separator), arg.substring(separator + 1));
+    }
+    new LoadGenerator(options).run();
+  }
+
+  public void run() throws InterruptedException {
+    User[] shoppers = Fixtures.users(users, "MIXED");
+    running = true;
+    long start = System.nanoTime();
+    try (ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (User shopper : shoppers) {
+        sessions.execute(() -> shop(shopper));
+      }
+      Thread.sleep(duration.toMillis());
+      running = false;
+    }
+    report(System.nanoTime() - start);
+  }
+
+  private void shop(User shopper) {
+    Random random = ThreadLocalRandom.current();
+    long checkouts = 0;
+    while (running) {
+      ShoppingCart cart = new ShoppingCart(shopper);
+      for (int i = 0; i < cartSize && running; i++) {
+        Product product = catalog[popularity.next(random)];
+        long start = System.nanoTime();
+        discountService.calculateDiscountedPrice(product, shopper);
+        quoteLatency.recordSince(start);
+        cart.addProduct(product, 1 + random.nextInt(3));
+        think(random);
+      }
+      if (!running || cart.getItems().isEmpty()) {
+        return;
+      }
+
+      long start = System.nanoTime();
+      Order order = new Order(shopper.getId() + "-" + checkouts++, cart);
+      boolean processed = inventoryService.processOrder(order);
+      checkoutLatency.recordSince(start);
+      (processed ? processedOrders : rejectedOrders).increment();
+      think(random);
+    }
+  }
+
+  private void think(Random random) {
+    if (thinkTimeMillis <= 0) {
+      return;
+    }
+    long pause = (long) (-thinkTimeMillis * Math.log(1 - random.nextDouble()));
+    try {
+      Thread.sleep(pause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  private void report(long elapsedNanos) {
+    double seconds = elapsedNanos / 1e9;
+    long processed = processedOrders.sum();
+    long rejected = rejectedOrders.sum();
+    System.out.printf(
+        "Elapsed %.1f s, %d orders processed, %d rejected, %.1f checkouts/s%n",
+        seconds, processed, rejected, (processed + rejected) / seconds);
+    print(quoteLatency.snapshot(), seconds);
+    print(checkoutLatency.snapshot(), seconds);
+  }
+
+  private static void print(HistogramSnapshot snapshot, double seconds) {
+    StringBuilder line = new StringBuilder();
+    line.append(
+        String.format("%-22s %10.1f ops/s", snapshot.getName(), snapshot.getCount() / seconds));
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      line.append(
+          String.format(
+              "  %s=%.1fus",
+              PERCENTILE_LABELS[i],
+              snapshot.getValueAtPercentile(PERCENTILES[i]) / 1e3));
+    }
+    line.append(String.format("  max=%.1fus", snapshot.getMax() / 1e3));
+    System.out.println(line);
+  }
+
+  private static int positive(Map<String, String> settings, String key) {
+    int value = Integer.parseInt(settings.get(key));
+    if (value <= 0) {
+      throw new IllegalArgumentException(key + " must be positive");
+    }
+    return value;
+  }
+}
@@ -0,0 +1,74 @@
+package org.ecommerce.benchmark;
+
+import org.ecommerce.Counter;
+import org.ecommerce.DiscountService;
+import org.ecommerce.LatencyHistogram;
+import org.ecommerce.MetricsRegistry;
+import org.ecommerce.Product;
+import org.ecommerce.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsOverheadBenchmark {
+
+  @Param({"false", "true"})
+  boolean metricsEnabled;
+
+  private DiscountService discountService;
+  private LatencyHistogram histogram;
+  private Counter counter;
+  private Product[] catalog;
+  private User[] users;
+
+  @Setup
+  public void setUp() {
+    MetricsRegistry registry = new MetricsRegistry();
+    catalog = Fixtures.catalog(1_000);
+    users = Fixtures.users(64, "MIXED");
+    discountService = new DiscountService();
+    discountService.setMetricsRegistry(metricsEnabled ? registry : null);
+    histogram = registry.histogram("benchmark.latency");
+    counter = registry.counter("benchmark.count");
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Benchmark
+  public double calculateDiscountedPrice(Cursor cursor) {
+    int index = cursor.next++;
+    return discountService.calculateDiscountedPrice(
+        catalog[index % catalog.length], users[index & (users.length - 1)]);
+  }
+
+  @Benchmark
+  public void recordLatency(Cursor cursor) {
+    histogram.record(cursor.next++ & 0xFFFFF);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void recordLatencyContended(Cursor cursor) {
+    histogram.record(cursor.next++ & 0xFFFFF);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void incrementCounterContended() {
+    counter.increment();
+  }
+}
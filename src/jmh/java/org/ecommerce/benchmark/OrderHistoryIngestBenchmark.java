@@ -0,0 +1,80 @@
+package org.ecommerce.benchmark;
+
+import org.ecommerce.Order;
+import org.ecommerce.OrderHistoryService;
+import org.ecommerce.Product;
+import org.ecommerce.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderHistoryIngestBenchmark {
+  private static final int ORDERS_PER_THREAD = 4096;
+
+  @Param({"1", "4", "16", "64"})
+  int shardCount;
+
+  @Param({"REGULAR", "MIXED"})
+  String userMix;
+
+  OrderHistoryService orderHistoryService;
+  Product[] catalog;
+
+  @Setup(Level.Trial)
+  public void setUpCatalog() {
+    catalog = Fixtures.catalog(1000);
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpService() {
+    orderHistoryService = new OrderHistoryService(shardCount);
+  }
+
+  @State(Scope.Thread)
+  public static class Orders {
+    Order[] orders;
+    User[] users;
+    Random random;
+    int next;
+    int lap;
+
+    @Setup(Level.Trial)
+    public void setUp(OrderHistoryIngestBenchmark benchmark) {
+      random = new Random(Thread.currentThread().threadId());
+      users = Fixtures.users(256, benchmark.userMix);
+      orders = new Order[ORDERS_PER_THREAD];
+      refill(benchmark.catalog);
+    }
+
+    // The history rejects an order it already holds, so every lap over the pool brings fresh ids;
+    // the rebuild is amortised over ORDERS_PER_THREAD adds.
+    void refill(Product[] catalog) {
+      String prefix = Thread.currentThread().threadId() + "-" + lap++ + "-";
+      for (int i = 0; i < orders.length; i++) {
+        User user = users[random.nextInt(users.length)];
+        orders[i] = Fixtures.order(prefix + i, user, catalog, 3, random);
+      }
+      next = 0;
+    }
+  }
+
+  @Benchmark
+  public void addOrder(Orders state) {
+    if (state.next == ORDERS_PER_THREAD) {
+      state.refill(catalog);
+    }
+    orderHistoryService.addOrder(state.orders[state.next++]);
+  }
+}
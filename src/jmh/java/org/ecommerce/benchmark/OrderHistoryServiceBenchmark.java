@@ -0,0 +1,88 @@
+package org.ecommerce.benchmark;
+
+import org.ecommerce.Order;
+import org.ecommerce.OrderHistoryService;
+import org.ecommerce.OrderPage;
+import org.ecommerce.Product;
+import org.ecommerce.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderHistoryServiceBenchmark {
+  private static final Order.Status[] STATUSES = Order.Status.values();
+
+  @Param({"10", "1000", "10000"})
+  int ordersPerUser;
+
+  @Param({"1", "100"})
+  int userCount;
+
+  @Param({"REGULAR", "MIXED"})
+  String userMix;
+
+  private OrderHistoryService orderHistoryService;
+  private User[] users;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(Fixtures.SEED);
+    Product[] catalog = Fixtures.catalog(1000);
+    users = Fixtures.users(userCount, userMix);
+    orderHistoryService = new OrderHistoryService();
+    for (User user : users) {
+      for (int i = 0; i < ordersPerUser; i++) {
+        Order order = Fixtures.order(user.getId() + "-" + i, user, catalog, 3, random);
+        orderHistoryService.addOrder(order);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Benchmark
+  public double getTotalUserSpending(Cursor cursor) {
+    return orderHistoryService.getTotalUserSpending(users[cursor.next++ % users.length]);
+  }
+
+  @Benchmark
+  public List<Order> getUserOrdersByStatus(Cursor cursor) {
+    int index = cursor.next++;
+    return orderHistoryService.getUserOrdersByStatus(
+        users[index % users.length], STATUSES[index % STATUSES.length]);
+  }
+
+  @Benchmark
+  public List<Order> getUserOrders(Cursor cursor) {
+    return orderHistoryService.getUserOrders(users[cursor.next++ % users.length]);
+  }
+
+  @Benchmark
+  public OrderPage getUserOrdersPage(Cursor cursor) {
+    return orderHistoryService.getUserOrdersPage(users[cursor.next++ % users.length], null, 20);
+  }
+
+  @Benchmark
+  public List<Order> streamRecentUserOrders(Cursor cursor) {
+    return orderHistoryService
+        .streamUserOrders(users[cursor.next++ % users.length])
+        .limit(20)
+        .collect(Collectors.toList());
+  }
+}
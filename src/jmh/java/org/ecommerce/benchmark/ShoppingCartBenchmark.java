@@ -0,0 +1,42 @@
+package org.ecommerce.benchmark;
+
+import org.ecommerce.Product;
+import org.ecommerce.ShoppingCart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShoppingCartBenchmark {
+
+  @Param({"1", "10", "100", "1000"})
+  int cartSize;
+
+  @Param({"REGULAR", "PREMIUM", "MIXED"})
+  String userMix;
+
+  private ShoppingCart cart;
+
+  @Setup
+  public void setUp() {
+    Product[] catalog = Fixtures.catalog(cartSize);
+    cart = new ShoppingCart(Fixtures.users(1, userMix)[0]);
+    for (int i = 0; i < cartSize; i++) {
+      cart.addProduct(catalog[i], 1 + i % 5);
+    }
+  }
+
+  @Benchmark
+  public double calculateTotal() {
+    return cart.calculateTotal();
+  }
+}
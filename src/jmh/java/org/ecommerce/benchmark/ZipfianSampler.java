@@ -0,0 +1,34 @@
+package org.ecommerce.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+final class ZipfianSampler {
+  private final double[] cumulative;
+
+  // Rank k (0-based) is drawn with probability proportional to 1 / (k + 1)^skew; a skew of zero
+  // is uniform and values around one give the usual "few hot products" shape.
+  ZipfianSampler(int size, double skew) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Size must be positive");
+    }
+    if (skew < 0) {
+      throw new IllegalArgumentException("Skew cannot be negative");
+    }
+
+    cumulative = new double[size];
+    double total = 0;
+    for (int i = 0; i < size; i++) {
+      total += 1 / Math.pow(i + 1, skew);
+      cumulative[i] = total;
+    }
+    for (int i = 0; i < size; i++) {
+      cumulative[i] /= total;
+    }
+  }
+
+  int next(Random random) {
+    int index = Arrays.binarySearch(cumulative, random.nextDouble());
+    return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+  }
+}
@@ -0,0 +1,46 @@
+package org.ecommerce;
+
+import java.util.Arrays;
+
+// Maps catalogued products to values by their dense catalog ID instead of hashing their string ID.
+// The index binds to the first catalog it sees; products of any other catalog, and products that
+// were never registered, are simply not found and callers fall back to their keyed lookup.
+class CatalogIndex<V> {
+  private ProductCatalog catalog;
+  private volatile Object[] values = new Object[0];
+
+  @SuppressWarnings("unchecked")
+  V get(Product product) {
+    int catalogId = product.getCatalogId();
+    if (catalogId == 0) {
+      return null;
+    }
+
+    Object[] current = values;
+    return catalogId < current.length && product.getCatalog() == catalog
+        ? (V) current[catalogId]
+        : null;
+  }
+
+  void put(Product product, V value) {
+    int catalogId = product.getCatalogId();
+    if (catalogId == 0) {
+      return;
+    }
+
+    synchronized (this) {
+      if (catalog == null) {
+        catalog = product.getCatalog();
+      } else if (catalog != product.getCatalog()) {
+        return;
+      }
+
+      Object[] current = values;
+      if (catalogId >= current.length) {
+        current = Arrays.copyOf(current, Math.max(catalogId + 1, current.length * 2));
+      }
+      current[catalogId] = value;
+      values = current;
+    }
+  }
+}
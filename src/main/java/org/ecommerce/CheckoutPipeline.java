@@ -0,0 +1,362 @@
+package org.ecommerce;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+public final class CheckoutPipeline {
+  public enum Stage {
+    CREATE_ORDER("checkout.createOrder.latency"),
+    PROCESS_INVENTORY("checkout.processInventory.latency"),
+    RECORD_HISTORY("checkout.recordHistory.latency"),
+    NOTIFY("checkout.notify.latency");
+
+    private final String metricName;
+
+    Stage(String metricName) {
+      this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+      return metricName;
+    }
+  }
+
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final int SPINS_BEFORE_PARKING = 100;
+  private static final long IDLE_PARK_NANOS = 50_000;
+  private static final Stage[] STAGES = Stage.values();
+  // Set in the claim counter on shutdown. It sits far above any real sequence, so claims that
+  // still bump the counter afterwards keep seeing it and are refused.
+  private static final long CLOSED = 1L << 62;
+
+  private final InventoryService inventoryService;
+  private final OrderHistoryService orderHistoryService;
+  private final NotificationService notificationService;
+  private final Slot[] ring;
+  private final int mask;
+  private final AtomicLong claimed;
+  // The number of sequences claimed before shutdown, all of which the stages still drain.
+  private volatile long drainTo;
+  // cursors[i] is the last sequence stage i has finished; only that stage's thread writes it.
+  private final AtomicLong[] cursors;
+  // A stage with nothing to do parks here once spinning has not paid off, and whoever publishes
+  // its next input unparks it, so an idle pipeline costs no CPU and wakes without a polling delay.
+  private final AtomicReferenceArray<Thread> sleepers;
+  private final LatencyHistogram[] latencies;
+  private final ExecutorService[] stageThreads;
+  // Stages finish in order once shut down; this counts how many have, so each can tell its
+  // upstream will publish nothing more.
+  private volatile int finishedStages;
+  private volatile boolean running;
+
+  public CheckoutPipeline(
+      InventoryService inventoryService,
+      OrderHistoryService orderHistoryService,
+      NotificationService notificationService) {
+    this(
+        inventoryService,
+        orderHistoryService,
+        notificationService,
+        DEFAULT_CAPACITY,
+        new MetricsRegistry());
+  }
+
+  public CheckoutPipeline(
+      InventoryService inventoryService,
+      OrderHistoryService orderHistoryService,
+      NotificationService notificationService,
+      int capacity,
+      MetricsRegistry registry) {
+    if (inventoryService == null) {
+      throw new IllegalArgumentException("Inventory service cannot be null");
+    }
+    if (orderHistoryService == null) {
+      throw new IllegalArgumentException("Order history service cannot be null");
+    }
+    if (notificationService == null) {
+      throw new IllegalArgumentException("Notification service cannot be null");
+    }
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    if (registry == null) {
+      throw new IllegalArgumentException("Metrics registry cannot be null");
+    }
+
+    this.inventoryService = inventoryService;
+    this.orderHistoryService = orderHistoryService;
+    this.notificationService = notificationService;
+    this.ring = new Slot[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+    for (int i = 0; i < ring.length; i++) {
+      ring[i] = new Slot();
+    }
+    this.mask = ring.length - 1;
+    this.claimed = new AtomicLong();
+    this.drainTo = Long.MAX_VALUE;
+    this.cursors = new AtomicLong[STAGES.length];
+    this.sleepers = new AtomicReferenceArray<>(STAGES.length);
+    this.latencies = new LatencyHistogram[STAGES.length];
+    this.stageThreads = new ExecutorService[STAGES.length];
+    for (int i = 0; i < STAGES.length; i++) {
+      cursors[i] = new AtomicLong(-1);
+      latencies[i] = registry.histogram(STAGES[i].getMetricName());
+    }
+    this.running = true;
+    for (int i = 0; i < STAGES.length; i++) {
+      int stage = i;
+      stageThreads[i] =
+          Executors.newSingleThreadExecutor(
+              Thread.ofVirtual().name("checkout-" + STAGES[i].name().toLowerCase()).factory());
+      stageThreads[i].execute(() -> runStage(stage));
+    }
+  }
+
+  public CompletableFuture<Order> checkout(String orderId, ShoppingCart cart) {
+    if (orderId == null || orderId.trim().isEmpty()) {
+      throw new IllegalArgumentException("Order ID cannot be null or empty");
+    }
+    if (cart == null) {
+      throw new IllegalArgumentException("Shopping cart cannot be null");
+    }
+
+    // Shutdown closes the claim counter atomically, so a checkout racing with it either gets a
+    // sequence the stages still drain, or is refused without publishing or waiting for a slot.
+    if (!running) {
+      throw new IllegalStateException("Checkout pipeline has been shut down");
+    }
+    long sequence = claimed.getAndIncrement();
+    if (sequence >= CLOSED) {
+      throw new IllegalStateException("Checkout pipeline has been shut down");
+    }
+    long wrapPoint = sequence - ring.length;
+    for (int idle = 0; wrapPoint > cursors[STAGES.length - 1].get(); idle++) {
+      idle(idle);
+    }
+
+    CompletableFuture<Order> result = new CompletableFuture<>();
+    Slot slot = ring[(int) (sequence & mask)];
+    slot.orderId = orderId;
+    slot.cart = cart;
+    slot.result = result;
+    slot.failure = null;
+    slot.enteredAtNanos = System.nanoTime();
+    slot.published = sequence;
+    wake(0);
+    return result;
+  }
+
+  public int getCapacity() {
+    return ring.length;
+  }
+
+  public int getQueueDepth(Stage stage) {
+    if (stage == null) {
+      throw new IllegalArgumentException("Stage cannot be null");
+    }
+
+    int index = stage.ordinal();
+    long upstream =
+        index == 0 ? Math.min(claimed.get(), drainTo) - 1 : cursors[index - 1].get();
+    return (int) Math.max(0, upstream - cursors[index].get());
+  }
+
+  public HistogramSnapshot getStageLatency(Stage stage) {
+    if (stage == null) {
+      throw new IllegalArgumentException("Stage cannot be null");
+    }
+
+    return latencies[stage.ordinal()].snapshot();
+  }
+
+  public void shutdown() throws InterruptedException {
+    long claims = claimed.getAndUpdate(count -> count | CLOSED);
+    if ((claims & CLOSED) == 0) {
+      drainTo = claims;
+    }
+    running = false;
+    for (int i = 0; i < STAGES.length; i++) {
+      wake(i);
+    }
+    for (ExecutorService stageThread : stageThreads) {
+      stageThread.shutdown();
+    }
+    for (ExecutorService stageThread : stageThreads) {
+      stageThread.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void runStage(int stage) {
+    try {
+      runStage(stage, stage == STAGES.length - 1 ? new ArrayList<>() : null);
+    } finally {
+      finishedStages = stage + 1;
+      if (stage + 1 < STAGES.length) {
+        wake(stage + 1);
+      }
+    }
+  }
+
+  private void runStage(int stage, List<Completion> completions) {
+    long next = cursors[stage].get() + 1;
+    int idle = 0;
+    while (true) {
+      long available = availableTo(stage, next);
+      if (available < next) {
+        if (isDrained(stage, next)) {
+          return;
+        }
+        if (idle++ < SPINS_BEFORE_PARKING) {
+          Thread.onSpinWait();
+        } else {
+          sleep(stage, next);
+        }
+        continue;
+      }
+
+      // Everything published since the last pass is handled as one batch, so a backlog is worked
+      // off with one cursor update instead of a hand-off per order.
+      for (long sequence = next; sequence <= available; sequence++) {
+        Slot slot = ring[(int) (sequence & mask)];
+        process(STAGES[stage], slot);
+        long now = System.nanoTime();
+        latencies[stage].record(now - slot.enteredAtNanos);
+        slot.enteredAtNanos = now;
+        if (completions != null) {
+          completions.add(new Completion(slot));
+        }
+      }
+      cursors[stage].set(available);
+      if (completions != null) {
+        // Futures complete only after the cursor has moved, so a caller woken by one already sees
+        // the checkout drained; the slots were emptied first as producers may now reuse them.
+        for (Completion completion : completions) {
+          completion.complete();
+        }
+        completions.clear();
+      } else {
+        wake(stage + 1);
+      }
+      next = available + 1;
+      idle = 0;
+    }
+  }
+
+  private void sleep(int stage, long next) {
+    // Registering before the final check pairs with publish-then-wake on the producing side, so a
+    // wake-up can be early or spurious but never lost.
+    sleepers.set(stage, Thread.currentThread());
+    if (availableTo(stage, next) < next && !isDrained(stage, next)) {
+      LockSupport.park(this);
+    }
+    sleepers.set(stage, null);
+  }
+
+  private void wake(int stage) {
+    Thread sleeper = sleepers.get(stage);
+    if (sleeper != null) {
+      LockSupport.unpark(sleeper);
+    }
+  }
+
+  private long availableTo(int stage, long next) {
+    if (stage > 0) {
+      return cursors[stage - 1].get();
+    }
+
+    // Producers publish out of order, so the first stage only takes the contiguous run.
+    long available = next - 1;
+    while (ring[(int) ((available + 1) & mask)].published == available + 1) {
+      available++;
+    }
+    return available;
+  }
+
+  private boolean isDrained(int stage, long next) {
+    if (running) {
+      return false;
+    }
+    // The upstream cursor is read again after its stage finished, as its last batch may have landed
+    // after this stage last looked.
+    return stage == 0
+        ? next >= drainTo
+        : finishedStages >= stage && cursors[stage - 1].get() < next;
+  }
+
+  private void process(Stage stage, Slot slot) {
+    if (slot.failure != null) {
+      return;
+    }
+
+    try {
+      switch (stage) {
+        case CREATE_ORDER:
+          slot.order = new Order(slot.orderId, slot.cart);
+          break;
+        case PROCESS_INVENTORY:
+          if (!inventoryService.processOrder(slot.order)) {
+            slot.order.setStatus(Order.Status.CANCELLED);
+          }
+          break;
+        case RECORD_HISTORY:
+          orderHistoryService.addOrder(slot.order);
+          break;
+        case NOTIFY:
+          notificationService.notifyOrderStatusChange(slot.order, slot.order.getStatus());
+          break;
+      }
+    } catch (Throwable e) {
+      // Even an Error only fails this checkout; letting it escape would end the stage thread and
+      // leave every later checkout waiting forever.
+      slot.failure = e;
+    }
+  }
+
+  private static void idle(int iteration) {
+    if (iteration < SPINS_BEFORE_PARKING) {
+      Thread.onSpinWait();
+    } else {
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+  }
+
+  private static class Slot {
+    private volatile long published = -1;
+    private String orderId;
+    private ShoppingCart cart;
+    private Order order;
+    private CompletableFuture<Order> result;
+    private Throwable failure;
+    private long enteredAtNanos;
+  }
+
+  private static class Completion {
+    private final CompletableFuture<Order> result;
+    private final Order order;
+    private final Throwable failure;
+
+    private Completion(Slot slot) {
+      this.result = slot.result;
+      this.order = slot.order;
+      this.failure = slot.failure;
+      slot.cart = null;
+      slot.order = null;
+      slot.result = null;
+      slot.failure = null;
+    }
+
+    private void complete() {
+      if (failure != null) {
+        result.completeExceptionally(failure);
+      } else {
+        result.complete(order);
+      }
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package org.ecommerce;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter {
+  private final String name;
+  private final LongAdder value;
+
+  public Counter(String name) {
+    if (name == null || name.trim().isEmpty()) {
+      throw new IllegalArgumentException("Metric name cannot be null or empty");
+    }
+
+    this.name = name;
+    this.value = new LongAdder();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void increment() {
+    value.increment();
+  }
+
+  public void add(long amount) {
+    if (amount < 0) {
+      throw new IllegalArgumentException("Counter increment cannot be negative");
+    }
+    value.add(amount);
+  }
+
+  public long get() {
+    return value.sum();
+  }
+}
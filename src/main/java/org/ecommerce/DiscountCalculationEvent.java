@@ -0,0 +1,25 @@
+package org.ecommerce;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.ecommerce.DiscountCalculation")
+@Label("Discount Calculation")
+@Category({"E-commerce", "Checkout"})
+@StackTrace(false)
+class DiscountCalculationEvent extends Event {
+  @Label("Product ID")
+  String productId;
+
+  @Label("User ID")
+  String userId;
+
+  @Label("User Type")
+  String userType;
+
+  @Label("Discounted Price")
+  double price;
+}
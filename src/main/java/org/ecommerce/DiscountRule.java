@@ -0,0 +1,97 @@
+package org.ecommerce;
+
+import java.time.Instant;
+
+public class DiscountRule {
+  public enum Scope {
+    USER_TYPE,
+    PRODUCT,
+    CATEGORY
+  }
+
+  private final Scope scope;
+  private final String target;
+  private final User.Type userType;
+  private final double percentage;
+  private final Instant validFrom;
+  private final Instant validUntil;
+
+  private DiscountRule(
+      Scope scope,
+      String target,
+      User.Type userType,
+      double percentage,
+      Instant validFrom,
+      Instant validUntil) {
+    if (percentage < 0 || percentage > 100) {
+      throw new IllegalArgumentException("Discount percentage must be between 0 and 100");
+    }
+    if (validFrom != null && validUntil != null && !validFrom.isBefore(validUntil)) {
+      throw new IllegalArgumentException("Discount window must end after it starts");
+    }
+
+    this.scope = scope;
+    this.target = target;
+    this.userType = userType;
+    this.percentage = percentage;
+    this.validFrom = validFrom;
+    this.validUntil = validUntil;
+  }
+
+  public static DiscountRule forUserType(User.Type userType, double percentage) {
+    if (userType == null) {
+      throw new IllegalArgumentException("User type cannot be null");
+    }
+
+    return new DiscountRule(Scope.USER_TYPE, null, userType, percentage, null, null);
+  }
+
+  public static DiscountRule forProduct(String productId, double percentage) {
+    if (productId == null || productId.trim().isEmpty()) {
+      throw new IllegalArgumentException("Product ID cannot be null or empty");
+    }
+
+    return new DiscountRule(Scope.PRODUCT, productId, null, percentage, null, null);
+  }
+
+  public static DiscountRule forCategory(String category, double percentage) {
+    if (category == null || category.trim().isEmpty()) {
+      throw new IllegalArgumentException("Category cannot be null or empty");
+    }
+
+    return new DiscountRule(Scope.CATEGORY, category, null, percentage, null, null);
+  }
+
+  public DiscountRule during(Instant validFrom, Instant validUntil) {
+    return new DiscountRule(scope, target, userType, percentage, validFrom, validUntil);
+  }
+
+  public Scope getScope() {
+    return scope;
+  }
+
+  public String getTarget() {
+    return target;
+  }
+
+  public User.Type getUserType() {
+    return userType;
+  }
+
+  public double getPercentage() {
+    return percentage;
+  }
+
+  public Instant getValidFrom() {
+    return validFrom;
+  }
+
+  public Instant getValidUntil() {
+    return validUntil;
+  }
+
+  public boolean isActiveAt(Instant instant) {
+    return (validFrom == null || !instant.isBefore(validFrom))
+        && (validUntil == null || instant.isBefore(validUntil));
+  }
+}
@@ -1,19 +1,45 @@
 package org.ecommerce;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class DiscountService {
 
-  private Map<String, Double> promotionalProducts;
-  private boolean discountCombinationEnabled;
+  private final Clock clock;
+  private final AtomicReference<PricingTable> pricingTable;
+  private final PriceCache priceCache;
+  private volatile LatencyHistogram pricingLatency;
 
   private static final double REGULAR_USER_DISCOUNT = 5.0;
   private static final double PREMIUM_USER_DISCOUNT = 15.0;
 
   public DiscountService() {
-    this.promotionalProducts = new HashMap<>();
-    this.discountCombinationEnabled = false;
+    this(Clock.systemUTC());
+  }
+
+  public DiscountService(Clock clock) {
+    this(clock, 0);
+  }
+
+  public DiscountService(Clock clock, int priceCacheSize) {
+    if (clock == null) {
+      throw new IllegalArgumentException("Clock cannot be null");
+    }
+    if (priceCacheSize < 0) {
+      throw new IllegalArgumentException("Price cache size cannot be negative");
+    }
+
+    this.clock = clock;
+    this.priceCache = priceCacheSize == 0 ? null : new PriceCache(priceCacheSize);
+    this.pricingTable = new AtomicReference<>();
+    publish(
+        List.of(
+            DiscountRule.forUserType(User.Type.REGULAR, REGULAR_USER_DISCOUNT),
+            DiscountRule.forUserType(User.Type.PREMIUM, PREMIUM_USER_DISCOUNT)),
+        PricingTable.StackingPolicy.BEST_DISCOUNT);
   }
 
   public void addPromotionalProduct(String productId, double discountPercentage) {
@@ -24,7 +50,11 @@ public class DiscountService {
       throw new IllegalArgumentException("Discount percentage must be between 0 and 100");
     }
 
-    promotionalProducts.put(productId, discountPercentage);
+    synchronized (this) {
+      List<DiscountRule> rules = withoutProductRules(productId);
+      rules.add(DiscountRule.forProduct(productId, discountPercentage));
+      publish(rules, pricingTable.get().getStackingPolicy());
+    }
   }
 
   public void removePromotionalProduct(String productId) {
@@ -32,11 +62,36 @@ public class DiscountService {
       throw new IllegalArgumentException("Product ID cannot be null or empty");
     }
 
-    promotionalProducts.remove(productId);
+    synchronized (this) {
+      publish(withoutProductRules(productId), pricingTable.get().getStackingPolicy());
+    }
   }
 
   public void setDiscountCombinationEnabled(boolean enabled) {
-    this.discountCombinationEnabled = enabled;
+    setStackingPolicy(
+        enabled
+            ? PricingTable.StackingPolicy.COMBINE
+            : PricingTable.StackingPolicy.BEST_DISCOUNT);
+  }
+
+  public synchronized void setStackingPolicy(PricingTable.StackingPolicy stackingPolicy) {
+    if (stackingPolicy == null) {
+      throw new IllegalArgumentException("Stacking policy cannot be null");
+    }
+
+    publish(pricingTable.get().getRules(), stackingPolicy);
+  }
+
+  public synchronized void setRules(Collection<DiscountRule> rules) {
+    if (rules == null) {
+      throw new IllegalArgumentException("Rules cannot be null");
+    }
+
+    publish(new ArrayList<>(rules), pricingTable.get().getStackingPolicy());
+  }
+
+  public List<DiscountRule> getRules() {
+    return pricingTable.get().getRules();
   }
 
   public boolean isPromotional(String productId) {
@@ -44,7 +99,7 @@ public class DiscountService {
       throw new IllegalArgumentException("Product ID cannot be null or empty");
     }
 
-    return promotionalProducts.containsKey(productId);
+    return currentTable().hasProductDiscount(productId);
   }
 
   public double getPromotionalDiscount(String productId) {
@@ -52,7 +107,7 @@ public class DiscountService {
       throw new IllegalArgumentException("Product ID cannot be null or empty");
     }
 
-    return promotionalProducts.getOrDefault(productId, 0.0);
+    return currentTable().getProductDiscount(productId);
   }
 
   public double calculateDiscountedPrice(Product product, User user) {
@@ -63,28 +118,154 @@ public class DiscountService {
       throw new IllegalArgumentException("User cannot be null");
     }
 
-    double originalPrice = product.getPrice();
-    double discountPercentage = 0.0;
+    DiscountCalculationEvent event = new DiscountCalculationEvent();
+    event.begin();
+    LatencyHistogram latency = pricingLatency;
+    long start = latency == null ? 0L : System.nanoTime();
+    double price = discountedPrice(product, user.getType());
+    if (latency != null) {
+      latency.recordSince(start);
+    }
 
-    double promotionalDiscount = getPromotionalDiscount(product.getId());
+    event.end();
+    if (event.shouldCommit()) {
+      event.productId = product.getId();
+      event.userId = user.getId();
+      event.userType = user.getType() == null ? null : user.getType().name();
+      event.price = price;
+      event.commit();
+    }
+    return price;
+  }
 
-    double userDiscount = 0.0;
-    if (user.getType() == User.Type.REGULAR) {
-      userDiscount = REGULAR_USER_DISCOUNT;
-    } else if (user.getType() == User.Type.PREMIUM) {
-      userDiscount = PREMIUM_USER_DISCOUNT;
+  public void setMetricsRegistry(MetricsRegistry registry) {
+    pricingLatency = registry == null ? null : registry.histogram("discount.price.latency");
+  }
+
+  public Money calculateDiscountedPriceAmount(Product product, User user) {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
     }
+    if (user == null) {
+      throw new IllegalArgumentException("User cannot be null");
+    }
+
+    DiscountCalculationEvent event = new DiscountCalculationEvent();
+    event.begin();
+    Money price = product.getPriceAmount().times(currentTable().factor(product, user.getType()));
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.productId = product.getId();
+      event.userId = user.getId();
+      event.userType = user.getType() == null ? null : user.getType().name();
+      event.price = price.toDouble();
+      event.commit();
+    }
+    return price;
+  }
+
+  public PriceCache getPriceCache() {
+    return priceCache;
+  }
 
-    if (promotionalDiscount > 0 && !discountCombinationEnabled) {
+  public void getDiscountFactors(Product[] products, User.Type userType, double[] factors) {
+    validateBulk(products, factors);
+    if (userType == null) {
+      throw new IllegalArgumentException("User type cannot be null");
+    }
+
+    currentTable().factors(products, userType, factors);
+  }
+
+  public void calculateDiscountedPrices(Product[] products, User.Type userType, double[] out) {
+    getDiscountFactors(products, userType, out);
+    for (int i = 0; i < products.length; i++) {
+      out[i] *= products[i].getPrice();
+    }
+  }
+
+  public static void calculateDiscountedPrices(double[] prices, double[] factors, double[] out) {
+    if (prices == null || factors == null || out == null) {
+      throw new IllegalArgumentException("Price arrays cannot be null");
+    }
+    if (factors.length < prices.length || out.length < prices.length) {
+      throw new IllegalArgumentException("Output buffer is too small");
+    }
+
+    // Kept branch-free over primitive arrays so the JIT can vectorize the multiply.
+    for (int i = 0; i < prices.length; i++) {
+      out[i] = prices[i] * factors[i];
+    }
+  }
+
+  public static void calculateDiscountedPrices(long[] prices, double[] factors, long[] out) {
+    if (prices == null || factors == null || out == null) {
+      throw new IllegalArgumentException("Price arrays cannot be null");
+    }
+    if (factors.length < prices.length || out.length < prices.length) {
+      throw new IllegalArgumentException("Output buffer is too small");
+    }
+
+    for (int i = 0; i < prices.length; i++) {
+      out[i] = Money.multiply(prices[i], factors[i]);
+    }
+  }
+
+  private static void validateBulk(Product[] products, double[] out) {
+    if (products == null) {
+      throw new IllegalArgumentException("Products cannot be null");
+    }
+    if (out == null) {
+      throw new IllegalArgumentException("Output buffer cannot be null");
+    }
+    if (out.length < products.length) {
+      throw new IllegalArgumentException("Output buffer is too small");
+    }
+    for (Product product : products) {
+      if (product == null) {
+        throw new IllegalArgumentException("Products cannot contain null");
+      }
+    }
+  }
+
+  private double discountedPrice(Product product, User.Type userType) {
+    PricingTable table = currentTable();
+    if (priceCache != null && userType != null) {
+      return priceCache.get(product, userType, table);
+    }
+    return product.getPrice() * table.factor(product, userType);
+  }
+
+  private PricingTable currentTable() {
+    PricingTable table = pricingTable.get();
+    long now = clock.millis();
+    if (!table.isExpiredAt(now)) {
+      return table;
+    }
+
+    // A discount window opened or closed: recompile without locking and publish only if no rule
+    // change raced ahead, so pricing threads never wait on each other or on writers.
+    PricingTable recompiled =
+        PricingTable.compile(table.getRules(), table.getStackingPolicy(), clock.instant());
+    return pricingTable.compareAndSet(table, recompiled) ? recompiled : pricingTable.get();
+  }
+
+  private List<DiscountRule> withoutProductRules(String productId) {
+    List<DiscountRule> rules = new ArrayList<>();
+    for (DiscountRule rule : pricingTable.get().getRules()) {
+      if (rule.getScope() != DiscountRule.Scope.PRODUCT || !rule.getTarget().equals(productId)) {
+        rules.add(rule);
+      }
+    }
+    return rules;
+  }
 
-      discountPercentage = Math.max(promotionalDiscount, userDiscount);
-    } else if (promotionalDiscount > 0 && discountCombinationEnabled) {
-      double factor1 = 1 - (promotionalDiscount / 100.0);
-      double factor2 = 1 - (userDiscount / 100.0);
-      return originalPrice * factor1 * factor2;
-    } else {
-      discountPercentage = userDiscount;
+  private void publish(List<DiscountRule> rules, PricingTable.StackingPolicy stackingPolicy) {
+    pricingTable.set(PricingTable.compile(rules, stackingPolicy, clock.instant()));
+    if (priceCache != null) {
+      // Entries priced against the previous table can never validate again; drop them eagerly.
+      priceCache.clear();
     }
-    return originalPrice * (1 - (discountPercentage / 100.0));
   }
 }
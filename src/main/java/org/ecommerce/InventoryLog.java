@@ -0,0 +1,623 @@
+package org.ecommerce;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+public class InventoryLog implements AutoCloseable {
+  private static final String FILE_PREFIX = "inventory-";
+  private static final String LOG_SUFFIX = ".wal";
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+  private static final int HEADER_SIZE = 8;
+  private static final byte PRODUCT_ADDED = 1;
+  private static final byte PRODUCT_REMOVED = 2;
+  private static final byte STOCK_TAKEN = 3;
+  private static final byte STOCK_RESTORED = 4;
+  private static final byte RESERVED = 5;
+  private static final byte RESERVATION_COMMITTED = 6;
+  private static final byte RESERVATION_RELEASED = 7;
+
+  private final Path directory;
+  private final ReentrantLock syncLock;
+  private final LongAdder syncs;
+  private ByteBuffer pending;
+  private ByteBuffer writing;
+  private ByteBuffer scratch;
+  private FileChannel channel;
+  private long generation;
+  private long appendedSequence;
+  private volatile long durableSequence;
+  private boolean closed;
+  private volatile boolean failed;
+
+  private InventoryLog(Path directory) {
+    this.directory = directory;
+    this.syncLock = new ReentrantLock();
+    this.syncs = new LongAdder();
+    this.pending = ByteBuffer.allocate(64 * 1024);
+    this.writing = ByteBuffer.allocate(64 * 1024);
+    this.scratch = ByteBuffer.allocate(1024);
+  }
+
+  public static InventoryLog open(Path directory) throws IOException {
+    if (directory == null) {
+      throw new IllegalArgumentException("Log directory cannot be null");
+    }
+
+    Files.createDirectories(directory);
+    InventoryLog log = new InventoryLog(directory);
+    log.generation = Math.max(log.latest(SNAPSHOT_SUFFIX), log.latest(LOG_SUFFIX));
+    log.channel = log.openForAppend(log.logPath(log.generation));
+    return log;
+  }
+
+  public Map<Product, Integer> replay() {
+    Map<String, Product> products = new LinkedHashMap<>();
+    Map<String, Integer> quantities = new HashMap<>();
+    Map<Long, Hold> holds = new LinkedHashMap<>();
+    try {
+      long snapshot = latest(SNAPSHOT_SUFFIX);
+      Path snapshotPath = snapshotPath(snapshot);
+      if (Files.exists(snapshotPath)) {
+        read(snapshotPath, payload -> apply(payload, products, quantities, holds));
+      }
+      for (long logGeneration = snapshot; logGeneration <= generation; logGeneration++) {
+        Path logPath = logPath(logGeneration);
+        if (Files.exists(logPath)) {
+          read(logPath, payload -> apply(payload, products, quantities, holds));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    // Holds still open were lost with the process that made them, so their stock is returned. The
+    // release is logged too, so a later replay agrees and reservation ids can be reused.
+    for (Hold hold : holds.values()) {
+      int restored = 0;
+      for (int i = 0; i < hold.count; i++) {
+        if (products.containsKey(hold.productIds[i])) {
+          quantities.merge(hold.productIds[i], hold.quantities[i], Integer::sum);
+          hold.productIds[restored] = hold.productIds[i];
+          hold.quantities[restored++] = hold.quantities[i];
+        }
+      }
+      appendReservationReleased(hold.id, hold.productIds, hold.quantities, restored);
+    }
+    if (!holds.isEmpty()) {
+      flush();
+    }
+
+    Map<Product, Integer> state = new LinkedHashMap<>();
+    for (Product product : products.values()) {
+      state.put(product, quantities.getOrDefault(product.getId(), 0));
+    }
+    return state;
+  }
+
+  public synchronized long appendProductAdded(Product product, int quantity) {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+
+    return append(encode(buffer -> encodeProduct(buffer, PRODUCT_ADDED, product, quantity)));
+  }
+
+  public synchronized long appendProductRemoved(String productId) {
+    if (productId == null) {
+      throw new IllegalArgumentException("Product ID cannot be null");
+    }
+
+    return append(
+        encode(
+            buffer -> {
+              buffer.put(PRODUCT_REMOVED);
+              putString(buffer, productId);
+            }));
+  }
+
+  public synchronized long appendStockTaken(String[] productIds, int[] quantities, int count) {
+    return append(
+        encode(buffer -> encodeStock(buffer, STOCK_TAKEN, productIds, quantities, count)));
+  }
+
+  public synchronized long appendStockRestored(String[] productIds, int[] quantities, int count) {
+    return append(
+        encode(buffer -> encodeStock(buffer, STOCK_RESTORED, productIds, quantities, count)));
+  }
+
+  public synchronized long appendReserved(
+      long reservationId, String[] productIds, int[] quantities, int count) {
+    return append(
+        encode(
+            buffer -> encodeHold(buffer, RESERVED, reservationId, productIds, quantities, count)));
+  }
+
+  public synchronized long appendReservationCommitted(long reservationId) {
+    return append(
+        encode(
+            buffer -> {
+              buffer.put(RESERVATION_COMMITTED);
+              buffer.putLong(reservationId);
+            }));
+  }
+
+  public synchronized long appendReservationReleased(
+      long reservationId, String[] productIds, int[] quantities, int count) {
+    return append(
+        encode(
+            buffer ->
+                encodeHold(
+                    buffer, RESERVATION_RELEASED, reservationId, productIds, quantities, count)));
+  }
+
+  public void sync(long sequence) {
+    if (sequence <= durableSequence) {
+      return;
+    }
+
+    // Group commit: whoever holds the sync lock writes and forces every record appended so far,
+    // so callers queued behind it usually find their record already durable when they get in.
+    syncLock.lock();
+    try {
+      if (sequence <= durableSequence) {
+        return;
+      }
+
+      ByteBuffer batch;
+      long upTo;
+      FileChannel target;
+      synchronized (this) {
+        batch = pending;
+        pending = writing;
+        writing = batch;
+        upTo = appendedSequence;
+        target = channel;
+      }
+      batch.flip();
+      while (batch.hasRemaining()) {
+        target.write(batch);
+      }
+      batch.clear();
+      target.force(false);
+      durableSequence = upTo;
+      syncs.increment();
+    } catch (IOException e) {
+      // What reached the disk is unknown, so nothing more is accepted rather than letting later
+      // records land after a gap.
+      failed = true;
+      throw new UncheckedIOException(e);
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  public void flush() {
+    long sequence;
+    synchronized (this) {
+      sequence = appendedSequence;
+    }
+    sync(sequence);
+  }
+
+  public long rotate() {
+    syncLock.lock();
+    try {
+      synchronized (this) {
+        checkOpen();
+        flush();
+        channel.close();
+        generation++;
+        channel = openForAppend(logPath(generation));
+        return generation;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  public void writeSnapshot(long snapshotGeneration, Map<Product, Integer> state) {
+    writeSnapshot(snapshotGeneration, state, List.of());
+  }
+
+  public void writeSnapshot(
+      long snapshotGeneration, Map<Product, Integer> state, Collection<Reservation> held) {
+    if (state == null) {
+      throw new IllegalArgumentException("Snapshot state cannot be null");
+    }
+    if (held == null) {
+      throw new IllegalArgumentException("Held reservations cannot be null");
+    }
+
+    Path temporary = directory.resolve(snapshotPath(snapshotGeneration).getFileName() + ".tmp");
+    try (FileChannel output =
+        FileChannel.open(
+            temporary,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      // Open holds are written after the products, whose quantities include the held stock again,
+      // so replay takes it once and can match each hold with its later commit or release. Lines for
+      // products already removed are left out, as their stock is not restored on release either.
+      Map<String, Integer> heldQuantities = new HashMap<>();
+      for (Product product : state.keySet()) {
+        heldQuantities.put(product.getId(), 0);
+      }
+      List<Hold> holds = new ArrayList<>();
+      for (Reservation reservation : held) {
+        Hold hold = Hold.of(reservation, heldQuantities::containsKey);
+        for (int i = 0; i < hold.count; i++) {
+          heldQuantities.merge(hold.productIds[i], hold.quantities[i], Integer::sum);
+        }
+        holds.add(hold);
+      }
+
+      ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+      ByteBuffer record = ByteBuffer.allocate(1024);
+      for (Map.Entry<Product, Integer> entry : state.entrySet()) {
+        Product product = entry.getKey();
+        int quantity = entry.getValue() + heldQuantities.get(product.getId());
+        record = encode(record, b -> encodeProduct(b, PRODUCT_ADDED, product, quantity));
+        buffer = frame(buffer, record);
+        if (buffer.position() > buffer.capacity() / 2) {
+          drain(output, buffer);
+        }
+      }
+      for (Hold hold : holds) {
+        record =
+            encode(
+                record,
+                b ->
+                    encodeHold(
+                        b, RESERVED, hold.id, hold.productIds, hold.quantities, hold.count));
+        buffer = frame(buffer, record);
+        if (buffer.position() > buffer.capacity() / 2) {
+          drain(output, buffer);
+        }
+      }
+      drain(output, buffer);
+      output.force(true);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    // The rename publishes the snapshot atomically; only then are the files it replaces deleted.
+    try {
+      Files.move(temporary, snapshotPath(snapshotGeneration), StandardCopyOption.ATOMIC_MOVE);
+      for (long older : generations(LOG_SUFFIX)) {
+        if (older < snapshotGeneration) {
+          Files.delete(logPath(older));
+        }
+      }
+      for (long older : generations(SNAPSHOT_SUFFIX)) {
+        if (older < snapshotGeneration) {
+          Files.delete(snapshotPath(older));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public long getSyncCount() {
+    return syncs.sum();
+  }
+
+  public long getDurableSequence() {
+    return durableSequence;
+  }
+
+  public synchronized long getGeneration() {
+    return generation;
+  }
+
+  @Override
+  public void close() {
+    syncLock.lock();
+    try {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        flush();
+        channel.close();
+        closed = true;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  private long append(ByteBuffer record) {
+    checkOpen();
+    pending = frame(pending, record);
+    return ++appendedSequence;
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Inventory log has been closed");
+    }
+    if (failed) {
+      throw new IllegalStateException("Inventory log has failed");
+    }
+  }
+
+  private ByteBuffer encode(Consumer<ByteBuffer> encoder) {
+    scratch = encode(scratch, encoder);
+    return scratch;
+  }
+
+  private static ByteBuffer encode(ByteBuffer buffer, Consumer<ByteBuffer> encoder) {
+    while (true) {
+      try {
+        buffer.clear();
+        encoder.accept(buffer);
+        buffer.flip();
+        return buffer;
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+      }
+    }
+  }
+
+  private static ByteBuffer frame(ByteBuffer target, ByteBuffer record) {
+    int length = record.remaining();
+    if (target.remaining() < HEADER_SIZE + length) {
+      int required = target.position() + HEADER_SIZE + length;
+      ByteBuffer grown = ByteBuffer.allocate(Math.max(target.capacity() * 2, required));
+      target.flip();
+      grown.put(target);
+      target = grown;
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(record.duplicate());
+    target.putInt(length);
+    target.putInt((int) crc.getValue());
+    target.put(record);
+    return target;
+  }
+
+  private static void drain(FileChannel output, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      output.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private static void read(Path path, Consumer<ByteBuffer> onRecord) throws IOException {
+    ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(path));
+    scan(contents, onRecord);
+  }
+
+  private static int scan(ByteBuffer contents, Consumer<ByteBuffer> onRecord) {
+    CRC32 crc = new CRC32();
+    int position = 0;
+    while (position + HEADER_SIZE <= contents.limit()) {
+      int length = contents.getInt(position);
+      if (length <= 0 || position + HEADER_SIZE + length > contents.limit()) {
+        break;
+      }
+
+      ByteBuffer payload = contents.slice(position + HEADER_SIZE, length);
+      crc.reset();
+      crc.update(payload.duplicate());
+      if ((int) crc.getValue() != contents.getInt(position + 4)) {
+        break;
+      }
+      if (onRecord != null) {
+        onRecord.accept(payload);
+      }
+      position += HEADER_SIZE + length;
+    }
+    return position;
+  }
+
+  private FileChannel openForAppend(Path path) throws IOException {
+    FileChannel opened =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    // A torn tail from a crash is cut off so new records follow the last intact one.
+    int intact = scan(ByteBuffer.wrap(Files.readAllBytes(path)), null);
+    opened.truncate(intact);
+    opened.position(intact);
+    return opened;
+  }
+
+  private static void apply(
+      ByteBuffer payload,
+      Map<String, Product> products,
+      Map<String, Integer> quantities,
+      Map<Long, Hold> holds) {
+    byte type = payload.get();
+    if (type == PRODUCT_ADDED) {
+      String productId = getString(payload);
+      String name = getString(payload);
+      long minorUnits = payload.getLong();
+      Money price = Money.ofMinorUnits(minorUnits, Currency.getInstance(getString(payload)));
+      String category = payload.get() == 1 ? getString(payload) : null;
+      products.put(productId, new Product(productId, name, price, category));
+      quantities.merge(productId, payload.getInt(), Integer::sum);
+    } else if (type == PRODUCT_REMOVED) {
+      String productId = getString(payload);
+      products.remove(productId);
+      quantities.put(productId, 0);
+    } else if (type == STOCK_TAKEN || type == STOCK_RESTORED) {
+      int sign = type == STOCK_TAKEN ? -1 : 1;
+      int count = payload.getInt();
+      for (int i = 0; i < count; i++) {
+        String productId = getString(payload);
+        quantities.merge(productId, sign * payload.getInt(), Integer::sum);
+      }
+    } else if (type == RESERVED) {
+      Hold hold = Hold.decode(payload);
+      for (int i = 0; i < hold.count; i++) {
+        quantities.merge(hold.productIds[i], -hold.quantities[i], Integer::sum);
+      }
+      holds.put(hold.id, hold);
+    } else if (type == RESERVATION_COMMITTED) {
+      holds.remove(payload.getLong());
+    } else if (type == RESERVATION_RELEASED) {
+      Hold restored = Hold.decode(payload);
+      if (holds.remove(restored.id) != null) {
+        for (int i = 0; i < restored.count; i++) {
+          quantities.merge(restored.productIds[i], restored.quantities[i], Integer::sum);
+        }
+      }
+    }
+  }
+
+  private static void encodeProduct(ByteBuffer buffer, byte type, Product product, int quantity) {
+    buffer.put(type);
+    putString(buffer, product.getId());
+    putString(buffer, product.getName());
+    Money price = product.getPriceAmount();
+    buffer.putLong(price.getMinorUnits());
+    putString(buffer, price.getCurrency().getCurrencyCode());
+    if (product.getCategory() == null) {
+      buffer.put((byte) 0);
+    } else {
+      buffer.put((byte) 1);
+      putString(buffer, product.getCategory());
+    }
+    buffer.putInt(quantity);
+  }
+
+  private static void encodeStock(
+      ByteBuffer buffer, byte type, String[] productIds, int[] quantities, int count) {
+    buffer.put(type);
+    buffer.putInt(count);
+    for (int i = 0; i < count; i++) {
+      putString(buffer, productIds[i]);
+      buffer.putInt(quantities[i]);
+    }
+  }
+
+  private static void encodeHold(
+      ByteBuffer buffer,
+      byte type,
+      long reservationId,
+      String[] productIds,
+      int[] quantities,
+      int count) {
+    buffer.put(type);
+    buffer.putLong(reservationId);
+    buffer.putInt(count);
+    for (int i = 0; i < count; i++) {
+      putString(buffer, productIds[i]);
+      buffer.putInt(quantities[i]);
+    }
+  }
+
+  private static void putString(ByteBuffer buffer, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 0xFFFF) {
+      throw new IllegalArgumentException("String is too long to be logged");
+    }
+    buffer.putShort((short) bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private long latest(String suffix) throws IOException {
+    long latest = 0;
+    for (long candidate : generations(suffix)) {
+      latest = Math.max(latest, candidate);
+    }
+    return latest;
+  }
+
+  private List<Long> generations(String suffix) throws IOException {
+    List<Long> generations = new ArrayList<>();
+    try (var stream = Files.list(directory)) {
+      stream
+          .map(path -> path.getFileName().toString())
+          .filter(name -> name.startsWith(FILE_PREFIX) && name.endsWith(suffix))
+          .map(name -> name.substring(FILE_PREFIX.length(), name.length() - suffix.length()))
+          .forEach(number -> generations.add(Long.parseLong(number)));
+    }
+    return generations;
+  }
+
+  private Path logPath(long logGeneration) {
+    return directory.resolve(fileName(logGeneration, LOG_SUFFIX));
+  }
+
+  private Path snapshotPath(long snapshotGeneration) {
+    return directory.resolve(fileName(snapshotGeneration, SNAPSHOT_SUFFIX));
+  }
+
+  private static String fileName(long fileGeneration, String suffix) {
+    return String.format("%s%08d%s", FILE_PREFIX, fileGeneration, suffix);
+  }
+
+  private static class Hold {
+    private final long id;
+    private final String[] productIds;
+    private final int[] quantities;
+    private final int count;
+
+    private Hold(long id, String[] productIds, int[] quantities, int count) {
+      this.id = id;
+      this.productIds = productIds;
+      this.quantities = quantities;
+      this.count = count;
+    }
+
+    private static Hold of(Reservation reservation, Predicate<String> present) {
+      String[] productIds = reservation.getProductIds();
+      String[] kept = new String[productIds.length];
+      int[] quantities = new int[productIds.length];
+      int count = 0;
+      for (int i = 0; i < productIds.length; i++) {
+        if (present.test(productIds[i])) {
+          kept[count] = productIds[i];
+          quantities[count++] = reservation.getQuantities()[i];
+        }
+      }
+      return new Hold(reservation.getId(), kept, quantities, count);
+    }
+
+    private static Hold decode(ByteBuffer payload) {
+      long id = payload.getLong();
+      int count = payload.getInt();
+      String[] productIds = new String[count];
+      int[] quantities = new int[count];
+      for (int i = 0; i < count; i++) {
+        productIds[i] = getString(payload);
+        quantities[i] = payload.getInt();
+      }
+      return new Hold(id, productIds, quantities, count);
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package org.ecommerce;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.ecommerce.InventoryProcess")
+@Label("Inventory Process Order")
+@Category({"E-commerce", "Checkout"})
+@StackTrace(false)
+class InventoryProcessEvent extends Event {
+  @Label("Order ID")
+  String orderId;
+
+  @Label("Processed")
+  boolean processed;
+
+  @Label("Line Count")
+  int lineCount;
+
+  @Label("Item Count")
+  long itemCount;
+}
@@ -1,15 +1,90 @@
 package org.ecommerce;
 
-import java.util.HashMap;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class InventoryService {
-  private Map<String, Integer> inventory;
-  private Map<String, Product> products;
+  public static final Duration DEFAULT_RESERVATION_TTL = Duration.ofMinutes(15);
+
+  private static final int DEFAULT_LOCK_STRIPES = 64;
+  private static final long RESERVATION_TICK_MILLIS = 100;
+  private static final int RESERVATION_WHEEL_SIZE = 4096;
+
+  private final StockLedger stock;
+  private final Map<String, Product> products;
+  private final ReentrantLock[] locks;
+  private final Clock clock;
+  private final ReservationWheel reservations;
+  private final AtomicLong reservationIds;
+  private final InventoryLog log;
+  private final Map<Long, Reservation> held = new ConcurrentHashMap<>();
+  private final Object snapshotLock = new Object();
+  private final CopyOnWriteArrayList<StockLevelListener> stockLevelListeners =
+      new CopyOnWriteArrayList<>();
+  private final LongAdder failedStockLevelDeliveries = new LongAdder();
+  private ScheduledExecutorService reaper;
+  private ScheduledExecutorService snapshotter;
+  private ScheduledExecutorService stockLevelPublisher;
+  private volatile Instruments instruments;
+  private volatile StockLevelMonitor stockLevels;
 
   public InventoryService() {
-    inventory = new HashMap<>();
-    products = new HashMap<>();
+    this(DEFAULT_LOCK_STRIPES);
+  }
+
+  public InventoryService(int lockStripes) {
+    this(lockStripes, Clock.systemUTC());
+  }
+
+  public InventoryService(int lockStripes, Clock clock) {
+    this(null, lockStripes, clock);
+  }
+
+  public InventoryService(InventoryLog log) {
+    this(requireLog(log), DEFAULT_LOCK_STRIPES, Clock.systemUTC());
+  }
+
+  public InventoryService(InventoryLog log, int lockStripes, Clock clock) {
+    if (lockStripes <= 0) {
+      throw new IllegalArgumentException("Lock stripes must be positive");
+    }
+    if (clock == null) {
+      throw new IllegalArgumentException("Clock cannot be null");
+    }
+
+    this.clock = clock;
+    reservations =
+        new ReservationWheel(RESERVATION_TICK_MILLIS, RESERVATION_WHEEL_SIZE, clock.millis());
+    reservationIds = new AtomicLong();
+    stock = new StockLedger();
+    products = new ConcurrentHashMap<>();
+    locks = new ReentrantLock[lockStripes == 1 ? 1 : Integer.highestOneBit(lockStripes - 1) << 1];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    this.log = log;
+    if (log != null) {
+      for (Map.Entry<Product, Integer> entry : log.replay().entrySet()) {
+        Product product = entry.getKey();
+        products.put(product.getId(), product);
+        stock.set(stock.slotFor(product), entry.getValue());
+      }
+    }
   }
 
   public void addProduct(Product product, int quantity) {
@@ -21,30 +96,62 @@ public class InventoryService {
     }
 
     String productId = product.getId();
-    products.put(productId, product);
-    inventory.put(productId, inventory.getOrDefault(productId, 0) + quantity);
+    int slot = stock.slotFor(product);
+    long sequence = 0;
+    ReentrantLock lock = locks[stripeOf(slot)];
+    lock.lock();
+    try {
+      if (log != null) {
+        sequence = log.appendProductAdded(product, quantity);
+      }
+      products.put(productId, product);
+      stock.add(slot, quantity);
+    } finally {
+      lock.unlock();
+    }
+    sync(sequence);
+    StockLevelMonitor monitor = stockLevels;
+    if (monitor != null) {
+      monitor.track(productId, slot);
+    }
   }
 
   public void removeProduct(Product product) {
     if (product == null) {
       throw new IllegalArgumentException("Product cannot be null");
     }
-    if (!products.containsKey(product.getId())) {
+
+    String productId = product.getId();
+    int slot = stock.slotOf(product);
+    if (slot < 0) {
       throw new IllegalArgumentException("Product not found in inventory");
     }
 
-    String productId = product.getId();
-    inventory.remove(productId);
-    products.remove(productId);
-  }
+    long sequence = 0;
+    ReentrantLock lock = locks[stripeOf(slot)];
+    lock.lock();
+    try {
+      if (!products.containsKey(productId)) {
+        throw new IllegalArgumentException("Product not found in inventory");
+      }
 
-  public boolean isInStock(Product product) {
-    if (product == null) {
-      throw new IllegalArgumentException("Product cannot be null");
+      if (log != null) {
+        sequence = log.appendProductRemoved(productId);
+      }
+      products.remove(productId);
+      stock.set(slot, 0);
+    } finally {
+      lock.unlock();
+    }
+    sync(sequence);
+    StockLevelMonitor monitor = stockLevels;
+    if (monitor != null) {
+      monitor.forget(productId);
     }
+  }
 
-    Integer quantity = inventory.get(product.getId());
-    return quantity != null && quantity > 0;
+  public boolean isInStock(Product product) {
+    return getQuantity(product) > 0;
   }
 
   public int getQuantity(Product product) {
@@ -52,10 +159,525 @@ public class InventoryService {
       throw new IllegalArgumentException("Product cannot be null");
     }
 
-    return inventory.getOrDefault(product.getId(), 0);
+    int slot = stock.slotOf(product);
+    return slot < 0 ? 0 : stock.get(slot);
   }
 
   public boolean processOrder(Order order) {
+    Instruments metrics = instruments;
+    if (metrics == null) {
+      return process(order);
+    }
+
+    long start = System.nanoTime();
+    boolean processed = process(order);
+    metrics.processLatency.recordSince(start);
+    (processed ? metrics.processed : metrics.rejected).increment();
+    return processed;
+  }
+
+  public void setMetricsRegistry(MetricsRegistry registry) {
+    instruments = registry == null ? null : new Instruments(registry);
+  }
+
+  private boolean process(Order order) {
+    InventoryProcessEvent event = new InventoryProcessEvent();
+    event.begin();
+    OrderLines lines = linesOf(order);
+    boolean processed = lines.known && decrement(lines);
+    if (processed) {
+      sync(lines.logSequence);
+      trackStockLevels(lines.productIds, lines.slots, lines.count);
+      order.setStatus(Order.Status.PROCESSING);
+    }
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.orderId = order.getId();
+      event.processed = processed;
+      event.lineCount = lines.count;
+      for (int i = 0; i < lines.count; i++) {
+        event.itemCount += lines.quantities[i];
+      }
+      event.commit();
+    }
+    return processed;
+  }
+
+  public Reservation reserve(Order order) {
+    return reserve(order, DEFAULT_RESERVATION_TTL);
+  }
+
+  public Reservation reserve(Order order, Duration ttl) {
+    if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+      throw new IllegalArgumentException("Reservation TTL must be positive");
+    }
+
+    OrderLines lines = linesOf(order);
+    if (!lines.known) {
+      return null;
+    }
+
+    Reservation reservation =
+        new Reservation(
+            reservationIds.incrementAndGet(),
+            order,
+            Arrays.copyOf(lines.productIds, lines.count),
+            Arrays.copyOf(lines.slots, lines.count),
+            Arrays.copyOf(lines.quantities, lines.count),
+            clock.millis() + ttl.toMillis());
+    lines.reservation = reservation;
+    if (!decrement(lines)) {
+      return null;
+    }
+    sync(lines.logSequence);
+    trackStockLevels(lines.productIds, lines.slots, lines.count);
+    reservations.schedule(reservation);
+    return reservation;
+  }
+
+  public boolean commit(Reservation reservation) {
+    if (reservation == null) {
+      throw new IllegalArgumentException("Reservation cannot be null");
+    }
+    if (clock.millis() >= reservation.getExpiresAtMillis()) {
+      // Past its deadline but not yet reaped: expire it here rather than honour a stale hold.
+      sync(expire(reservation));
+      reservations.cancel(reservation);
+      return false;
+    }
+    long sequence = settle(reservation, Reservation.State.COMMITTED);
+    if (sequence < 0) {
+      return false;
+    }
+
+    reservations.cancel(reservation);
+    sync(sequence);
+    reservation.getOrder().setStatus(Order.Status.PROCESSING);
+    return true;
+  }
+
+  public boolean release(Reservation reservation) {
+    if (reservation == null) {
+      throw new IllegalArgumentException("Reservation cannot be null");
+    }
+    long sequence = restock(reservation, Reservation.State.RELEASED);
+    if (sequence < 0) {
+      return false;
+    }
+
+    reservations.cancel(reservation);
+    sync(sequence);
+    return true;
+  }
+
+  public int reclaimExpiredReservations() {
+    int expired = reservations.advance(clock.millis(), this::expire);
+    if (expired > 0 && log != null) {
+      log.flush();
+    }
+    return expired;
+  }
+
+  public void takeSnapshot() {
+    if (log == null) {
+      throw new IllegalStateException("Inventory has no log to snapshot");
+    }
+
+    // Every stripe is held while the state is copied and the log rotated, so the snapshot is
+    // exactly the state at the start of the new log generation and nothing is lost in between.
+    int[] allStripes = new int[locks.length];
+    for (int i = 0; i < allStripes.length; i++) {
+      allStripes[i] = i;
+    }
+    Map<Product, Integer> state = new LinkedHashMap<>();
+    List<Reservation> holds;
+    long generation;
+    synchronized (snapshotLock) {
+      lockAll(allStripes);
+      try {
+        for (Product product : products.values()) {
+          state.put(product, stock.get(stock.slotOf(product)));
+        }
+        holds = new ArrayList<>(held.values());
+        generation = log.rotate();
+      } finally {
+        unlockAll(allStripes);
+      }
+      log.writeSnapshot(generation, state, holds);
+    }
+  }
+
+  public synchronized void startSnapshots(Duration interval) {
+    if (interval == null || interval.isZero() || interval.isNegative()) {
+      throw new IllegalArgumentException("Snapshot interval must be positive");
+    }
+    if (log == null) {
+      throw new IllegalStateException("Inventory has no log to snapshot");
+    }
+    if (snapshotter != null) {
+      return;
+    }
+
+    snapshotter =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("inventory-snapshotter").daemon().factory());
+    snapshotter.scheduleWithFixedDelay(
+        this::takeSnapshot, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void stopSnapshots() throws InterruptedException {
+    if (snapshotter == null) {
+      return;
+    }
+
+    snapshotter.shutdown();
+    snapshotter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    snapshotter = null;
+  }
+
+  public void addStockLevelListener(StockLevelListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener cannot be null");
+    }
+
+    stockLevelListeners.addIfAbsent(listener);
+  }
+
+  public void removeStockLevelListener(StockLevelListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener cannot be null");
+    }
+
+    stockLevelListeners.remove(listener);
+  }
+
+  public long getFailedStockLevelDeliveryCount() {
+    return failedStockLevelDeliveries.sum();
+  }
+
+  public synchronized void startStockLevelEvents(int lowStockThreshold, Duration window) {
+    if (lowStockThreshold < 0) {
+      throw new IllegalArgumentException("Low stock threshold cannot be negative");
+    }
+    if (window == null || window.isZero() || window.isNegative()) {
+      throw new IllegalArgumentException("Coalescing window must be positive");
+    }
+    if (stockLevels != null) {
+      return;
+    }
+
+    StockLevelMonitor monitor = new StockLevelMonitor(stock, products, lowStockThreshold);
+    stockLevels = monitor;
+    monitor.seed();
+    stockLevelPublisher =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("inventory-stock-levels").daemon().factory());
+    stockLevelPublisher.scheduleWithFixedDelay(
+        this::publishStockLevelEvents, window.toMillis(), window.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public int publishStockLevelEvents() {
+    StockLevelMonitor monitor = stockLevels;
+    if (monitor == null) {
+      return 0;
+    }
+
+    // Draining and delivering under one lock keeps each product's events in order for listeners
+    // even when a manual publish overlaps the scheduled one.
+    synchronized (monitor) {
+      List<StockLevelEvent> events = monitor.drain(clock.instant());
+      for (StockLevelEvent event : events) {
+        for (StockLevelListener listener : stockLevelListeners) {
+          try {
+            listener.onStockLevelChange(event);
+          } catch (RuntimeException e) {
+            failedStockLevelDeliveries.increment();
+          }
+        }
+      }
+      return events.size();
+    }
+  }
+
+  public synchronized void stopStockLevelEvents() throws InterruptedException {
+    if (stockLevelPublisher == null) {
+      return;
+    }
+
+    stockLevelPublisher.shutdown();
+    stockLevelPublisher.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    stockLevelPublisher = null;
+    publishStockLevelEvents();
+    stockLevels = null;
+  }
+
+  public int getActiveReservationCount() {
+    return reservations.size();
+  }
+
+  public synchronized void startReservationReaper() {
+    if (reaper != null) {
+      return;
+    }
+
+    reaper =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("inventory-reservation-reaper").daemon().factory());
+    reaper.scheduleAtFixedRate(
+        this::reclaimExpiredReservations,
+        RESERVATION_TICK_MILLIS,
+        RESERVATION_TICK_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void stopReservationReaper() throws InterruptedException {
+    if (reaper == null) {
+      return;
+    }
+
+    reaper.shutdown();
+    reaper.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    reaper = null;
+  }
+
+  public boolean[] processOrders(Collection<Order> orders) {
+    return processOrders(orders, null);
+  }
+
+  public boolean[] processOrders(Collection<Order> orders, Comparator<Order> priority) {
+    if (orders == null) {
+      throw new IllegalArgumentException("Orders cannot be null");
+    }
+
+    Order[] batch = orders.toArray(new Order[0]);
+    OrderLines[] lines = new OrderLines[batch.length];
+    int totalLines = 0;
+    for (int i = 0; i < batch.length; i++) {
+      lines[i] = linesOf(batch[i]);
+      totalLines += lines[i].known ? lines[i].count : 0;
+    }
+
+    int[] products = new int[totalLines];
+    int next = 0;
+    for (OrderLines orderLines : lines) {
+      if (orderLines.known) {
+        System.arraycopy(orderLines.slots, 0, products, next, orderLines.count);
+        next += orderLines.count;
+      }
+    }
+    products = distinctSorted(products, products.length);
+
+    long[] demand = new long[products.length];
+    for (OrderLines orderLines : lines) {
+      if (orderLines.known) {
+        for (int i = 0; i < orderLines.count; i++) {
+          orderLines.productIndexes[i] = Arrays.binarySearch(products, orderLines.slots[i]);
+          demand[orderLines.productIndexes[i]] += orderLines.quantities[i];
+        }
+      }
+    }
+
+    Integer[] allocationOrder = new Integer[batch.length];
+    for (int i = 0; i < batch.length; i++) {
+      allocationOrder[i] = i;
+    }
+    if (priority != null) {
+      // Arrays.sort on objects is stable, so orders of equal priority keep their FIFO position.
+      Arrays.sort(allocationOrder, (a, b) -> priority.compare(batch[a], batch[b]));
+    }
+
+    boolean[] results = new boolean[batch.length];
+    long sequence = 0;
+    int[] stripes = stripesOf(products, products.length);
+    lockAll(stripes);
+    try {
+      long[] taken = allocate(products, demand, lines, allocationOrder, results);
+      if (log != null) {
+        // With a log no stock changes outside the stripes, so the allocation still holds once the
+        // record has been appended, and a log that rejects the record leaves memory as is.
+        sequence = logTaken(lines, results);
+        for (int i = 0; i < products.length; i++) {
+          stock.add(products[i], (int) -taken[i]);
+        }
+      } else {
+        while (!take(products, taken)) {
+          Arrays.fill(results, false);
+          taken = allocate(products, demand, lines, allocationOrder, results);
+        }
+      }
+    } finally {
+      unlockAll(stripes);
+    }
+    sync(sequence);
+
+    for (int i = 0; i < batch.length; i++) {
+      if (results[i]) {
+        trackStockLevels(lines[i].productIds, lines[i].slots, lines[i].count);
+        batch[i].setStatus(Order.Status.PROCESSING);
+      }
+    }
+    return results;
+  }
+
+  private long[] allocate(
+      int[] products,
+      long[] demand,
+      OrderLines[] lines,
+      Integer[] allocationOrder,
+      boolean[] results) {
+    long[] remaining = new long[products.length];
+    boolean enough = true;
+    for (int i = 0; i < products.length; i++) {
+      remaining[i] = stock.get(products[i]);
+      enough &= remaining[i] >= demand[i];
+    }
+
+    long[] taken = new long[products.length];
+    for (int orderIndex : allocationOrder) {
+      OrderLines orderLines = lines[orderIndex];
+      if (!orderLines.known) {
+        continue;
+      }
+
+      boolean fits = true;
+      for (int i = 0; i < orderLines.count && !enough; i++) {
+        fits &= remaining[orderLines.productIndexes[i]] >= orderLines.quantities[i];
+      }
+      if (fits) {
+        for (int i = 0; i < orderLines.count; i++) {
+          remaining[orderLines.productIndexes[i]] -= orderLines.quantities[i];
+          taken[orderLines.productIndexes[i]] += orderLines.quantities[i];
+        }
+        results[orderIndex] = true;
+      }
+    }
+    return taken;
+  }
+
+  private boolean take(int[] products, long[] taken) {
+    // A single-line order that passed its stripe check just before the stripes were taken may
+    // still consume stock, so the aggregated decrement can lose a race; it is then undone and the
+    // batch re-planned.
+    for (int i = 0; i < products.length; i++) {
+      if (taken[i] > 0 && !stock.tryDecrement(products[i], (int) taken[i])) {
+        for (int j = 0; j < i; j++) {
+          stock.add(products[j], (int) taken[j]);
+        }
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long expire(Reservation reservation) {
+    return Math.max(restock(reservation, Reservation.State.EXPIRED), 0);
+  }
+
+  private long restock(Reservation reservation, Reservation.State outcome) {
+    long sequence = settle(reservation, outcome);
+    if (sequence >= 0) {
+      int[] slots = reservation.getSlots();
+      trackStockLevels(reservation.getProductIds(), slots, slots.length);
+    }
+    return sequence;
+  }
+
+  // Every transition out of HELD happens here under the reservation's stripes, so its record is
+  // appended before the state and stock change and in the same order as any competing writer's.
+  // Returns the log sequence to sync, or -1 when the reservation was no longer held.
+  private long settle(Reservation reservation, Reservation.State outcome) {
+    String[] productIds = reservation.getProductIds();
+    int[] slots = reservation.getSlots();
+    int[] quantities = reservation.getQuantities();
+    int[] stripes = stripesOf(slots, slots.length);
+    lockAll(stripes);
+    try {
+      if (!reservation.isHeld()) {
+        return -1;
+      }
+
+      // Stock held for a product removed in the meantime is not resurrected.
+      boolean[] restore = new boolean[slots.length];
+      String[] restoredIds = new String[slots.length];
+      int[] restoredQuantities = new int[slots.length];
+      int restored = 0;
+      for (int i = 0; i < slots.length && outcome != Reservation.State.COMMITTED; i++) {
+        if (products.containsKey(productIds[i])) {
+          restore[i] = true;
+          restoredIds[restored] = productIds[i];
+          restoredQuantities[restored++] = quantities[i];
+        }
+      }
+
+      long sequence = 0;
+      if (log != null) {
+        sequence =
+            outcome == Reservation.State.COMMITTED
+                ? log.appendReservationCommitted(reservation.getId())
+                : log.appendReservationReleased(
+                    reservation.getId(), restoredIds, restoredQuantities, restored);
+        held.remove(reservation.getId());
+      }
+      reservation.finish(outcome);
+      for (int i = 0; i < slots.length; i++) {
+        if (restore[i]) {
+          stock.add(slots[i], quantities[i]);
+        }
+      }
+      return sequence;
+    } finally {
+      unlockAll(stripes);
+    }
+  }
+
+  private long logTaken(OrderLines[] lines, boolean[] results) {
+    int total = 0;
+    for (int i = 0; i < lines.length; i++) {
+      total += results[i] ? lines[i].count : 0;
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    String[] productIds = new String[total];
+    int[] quantities = new int[total];
+    int next = 0;
+    for (int i = 0; i < lines.length; i++) {
+      if (results[i]) {
+        System.arraycopy(lines[i].productIds, 0, productIds, next, lines[i].count);
+        System.arraycopy(lines[i].quantities, 0, quantities, next, lines[i].count);
+        next += lines[i].count;
+      }
+    }
+    return log.appendStockTaken(productIds, quantities, total);
+  }
+
+  private void trackStockLevels(String[] productIds, int[] slots, int count) {
+    StockLevelMonitor monitor = stockLevels;
+    if (monitor != null) {
+      for (int i = 0; i < count; i++) {
+        monitor.track(productIds[i], slots[i]);
+      }
+    }
+  }
+
+  private void sync(long sequence) {
+    // Changes are applied and logged under the stripes, but only made durable after the stripes
+    // are released, so one fsync can cover the records of every caller that queued up meanwhile.
+    if (sequence > 0) {
+      log.sync(sequence);
+    }
+  }
+
+  private static InventoryLog requireLog(InventoryLog log) {
+    if (log == null) {
+      throw new IllegalArgumentException("Inventory log cannot be null");
+    }
+    return log;
+  }
+
+  private OrderLines linesOf(Order order) {
     if (order == null) {
       throw new IllegalArgumentException("Order cannot be null");
     }
@@ -63,27 +685,162 @@ public class InventoryService {
       throw new IllegalArgumentException("Order must contain at least one item");
     }
 
-    for (Map.Entry<Product, Integer> entry : order.getItems().entrySet()) {
+    Map<Product, Integer> items = order.getItems();
+    OrderLines lines = new OrderLines(items.size());
+    for (Map.Entry<Product, Integer> entry : items.entrySet()) {
       Product product = entry.getKey();
-      int quantity = entry.getValue();
-
       if (product == null) {
         throw new IllegalArgumentException("Order contains null product");
       }
 
-      if (getQuantity(product) < quantity) {
-        return false;
+      int quantity = entry.getValue();
+      if (quantity <= 0) {
+        continue;
       }
+
+      int slot = stock.slotOf(product);
+      if (slot < 0) {
+        lines.known = false;
+      }
+      lines.productIds[lines.count] = product.getId();
+      lines.slots[lines.count] = slot;
+      lines.quantities[lines.count] = quantity;
+      lines.count++;
     }
+    return lines;
+  }
 
-    for (Map.Entry<Product, Integer> entry : order.getItems().entrySet()) {
-      Product product = entry.getKey();
-      int quantity = entry.getValue();
+  private boolean decrement(OrderLines lines) {
+    int[] slots = lines.slots;
+    int[] quantities = lines.quantities;
+    int count = lines.count;
+    // A single line is one lock-free compare-and-set; only multi-line orders need the stripes.
+    // With a log every decrement takes them, so records are logged in the order they applied.
+    if (count == 0) {
+      return true;
+    }
+    if (count == 1 && log == null) {
+      // While a multi-line order holds the stripe, a single line waits its turn instead of racing
+      // it for the stock that order has just checked.
+      ReentrantLock lock = locks[stripeOf(slots[0])];
+      if (!lock.isLocked()) {
+        return stock.tryDecrement(slots[0], quantities[0]);
+      }
+      lock.lock();
+      try {
+        return stock.tryDecrement(slots[0], quantities[0]);
+      } finally {
+        lock.unlock();
+      }
+    }
 
-      inventory.put(product.getId(), getQuantity(product) - quantity);
+    int[] stripes = stripesOf(slots, count);
+    lockAll(stripes);
+    try {
+      // Every line is checked before any is taken, so an order that cannot be filled never shows
+      // other callers a partial decrement.
+      for (int i = 0; i < count; i++) {
+        if (stock.get(slots[i]) < quantities[i]) {
+          return false;
+        }
+      }
+      if (log == null) {
+        // Only a single line that passed its stripe check just before the stripes were taken can
+        // still win the last units here, and only then is a partial decrement undone.
+        for (int i = 0; i < count; i++) {
+          if (!stock.tryDecrement(slots[i], quantities[i])) {
+            for (int j = 0; j < i; j++) {
+              stock.add(slots[j], quantities[j]);
+            }
+            return false;
+          }
+        }
+        return true;
+      }
+
+      // With a log no stock changes outside the stripes, so what was checked is still there once
+      // the record has been appended, and a log that rejects the record leaves memory as is.
+      Reservation reservation = lines.reservation;
+      lines.logSequence =
+          reservation == null
+              ? log.appendStockTaken(lines.productIds, quantities, count)
+              : log.appendReserved(reservation.getId(), lines.productIds, quantities, count);
+      for (int i = 0; i < count; i++) {
+        stock.add(slots[i], -quantities[i]);
+      }
+      if (reservation != null) {
+        held.put(reservation.getId(), reservation);
+      }
+      return true;
+    } finally {
+      unlockAll(stripes);
     }
-    order.setStatus(Order.Status.PROCESSING);
+  }
 
-    return true;
+  private int stripeOf(int slot) {
+    return slot & (locks.length - 1);
+  }
+
+  private int[] stripesOf(int[] slots, int lines) {
+    int[] stripes = new int[lines];
+    for (int i = 0; i < lines; i++) {
+      stripes[i] = stripeOf(slots[i]);
+    }
+
+    // Locks are always taken in ascending stripe order so overlapping orders cannot deadlock.
+    return distinctSorted(stripes, lines);
+  }
+
+  private static int[] distinctSorted(int[] values, int length) {
+    Arrays.sort(values, 0, length);
+    int distinct = 0;
+    for (int i = 0; i < length; i++) {
+      if (i == 0 || values[i] != values[i - 1]) {
+        values[distinct++] = values[i];
+      }
+    }
+    return distinct == values.length ? values : Arrays.copyOf(values, distinct);
+  }
+
+  private void lockAll(int[] stripes) {
+    for (int stripe : stripes) {
+      locks[stripe].lock();
+    }
+  }
+
+  private void unlockAll(int[] stripes) {
+    for (int i = stripes.length - 1; i >= 0; i--) {
+      locks[stripes[i]].unlock();
+    }
+  }
+
+  private static class OrderLines {
+    private final String[] productIds;
+    private final int[] slots;
+    private final int[] quantities;
+    private final int[] productIndexes;
+    private int count;
+    private boolean known = true;
+    private long logSequence;
+    private Reservation reservation;
+
+    private OrderLines(int capacity) {
+      this.productIds = new String[capacity];
+      this.slots = new int[capacity];
+      this.quantities = new int[capacity];
+      this.productIndexes = new int[capacity];
+    }
+  }
+
+  private static class Instruments {
+    private final LatencyHistogram processLatency;
+    private final Counter processed;
+    private final Counter rejected;
+
+    private Instruments(MetricsRegistry registry) {
+      this.processLatency = registry.histogram("inventory.processOrder.latency");
+      this.processed = registry.counter("inventory.processOrder.processed");
+      this.rejected = registry.counter("inventory.processOrder.rejected");
+    }
   }
 }
@@ -0,0 +1,91 @@
+package org.ecommerce;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+  // Log-linear buckets: values below 2^SUB_BUCKET_BITS are exact, and every power of two above is
+  // split into HALF_SUB_BUCKETS linear buckets, bounding the relative error at about 3%.
+  static final int SUB_BUCKET_BITS = 6;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  static final long MAX_TRACKABLE_VALUE = (1L << 40) - 1;
+  static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE_VALUE) + 1;
+
+  private static final int MAX_STRIPES = 16;
+
+  private final String name;
+  private final AtomicLongArray[] stripes;
+  private final LongAdder sum;
+  private final LongAccumulator min;
+  private final LongAccumulator max;
+
+  public LatencyHistogram(String name) {
+    if (name == null || name.trim().isEmpty()) {
+      throw new IllegalArgumentException("Metric name cannot be null or empty");
+    }
+
+    int processors = Runtime.getRuntime().availableProcessors();
+    int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(processors * 2 - 1) << 1);
+    this.name = name;
+    this.stripes = new AtomicLongArray[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new AtomicLongArray(BUCKET_COUNT);
+    }
+    this.sum = new LongAdder();
+    this.min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    this.max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void record(long nanos) {
+    long value = Math.max(0L, Math.min(nanos, MAX_TRACKABLE_VALUE));
+    // Recorders are striped by thread rather than held in thread locals, which would not scale to
+    // large numbers of virtual threads.
+    long thread = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+    stripes[(int) (thread >>> 32) & (stripes.length - 1)].getAndIncrement(indexOf(value));
+    sum.add(value);
+    min.accumulate(value);
+    max.accumulate(value);
+  }
+
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  public HistogramSnapshot snapshot() {
+    long[] counts = new long[BUCKET_COUNT];
+    long count = 0;
+    for (AtomicLongArray stripe : stripes) {
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        long bucket = stripe.get(i);
+        counts[i] += bucket;
+        count += bucket;
+      }
+    }
+    return count == 0
+        ? new HistogramSnapshot(name, counts, 0, 0, 0, 0)
+        : new HistogramSnapshot(name, counts, count, sum.sum(), min.get(), max.get());
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+    return exponent * HALF_SUB_BUCKETS + (int) (value >>> exponent);
+  }
+
+  static long highestValueIn(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / HALF_SUB_BUCKETS - 1;
+    long subBucket = index - (long) exponent * HALF_SUB_BUCKETS;
+    return ((subBucket + 1) << exponent) - 1;
+  }
+}
@@ -0,0 +1,287 @@
+package org.ecommerce;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+public class LineItems {
+  private static final int INITIAL_CAPACITY = 8;
+
+  private Product[] products;
+  private int[] quantities;
+  private long[] unitPrices;
+  private long[] priceVersions;
+  private int size;
+
+  // Open-addressing index from product identity to line number, sized to twice the line capacity.
+  private Product[] keys;
+  private int[] lines;
+
+  private final Currency currency;
+  private long runningTotal;
+  private final Map<Product, Integer> view;
+
+  public LineItems() {
+    this(Money.DEFAULT_CURRENCY);
+  }
+
+  public LineItems(Currency currency) {
+    if (currency == null) {
+      throw new IllegalArgumentException("Currency cannot be null");
+    }
+
+    this.currency = currency;
+    this.products = new Product[INITIAL_CAPACITY];
+    this.quantities = new int[INITIAL_CAPACITY];
+    this.unitPrices = new long[INITIAL_CAPACITY];
+    this.priceVersions = new long[INITIAL_CAPACITY];
+    this.keys = new Product[INITIAL_CAPACITY * 2];
+    this.lines = new int[INITIAL_CAPACITY * 2];
+    this.view = new MapView();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public Product getProduct(int line) {
+    checkLine(line);
+    return products[line];
+  }
+
+  public int getQuantity(int line) {
+    checkLine(line);
+    return quantities[line];
+  }
+
+  public int indexOf(Product product) {
+    if (product == null) {
+      return -1;
+    }
+
+    int mask = keys.length - 1;
+    for (int i = hash(product) & mask; keys[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == product) {
+        return lines[i];
+      }
+    }
+    return -1;
+  }
+
+  public void add(Product product, int quantity) {
+    int line = indexOf(product);
+    // The version is read before the price, so a price set in between is caught by the next total.
+    long version = product.getPriceVersion();
+    long price = priceOf(product);
+    if (line >= 0) {
+      int merged = Math.addExact(quantities[line], quantity);
+      runningTotal = reprice(runningTotal, unitPrices[line], quantities[line], price, merged);
+      unitPrices[line] = price;
+      priceVersions[line] = version;
+      quantities[line] = merged;
+      return;
+    }
+
+    long total = Math.addExact(runningTotal, Math.multiplyExact(price, quantity));
+    if (size == products.length) {
+      grow();
+    }
+    products[size] = product;
+    quantities[size] = quantity;
+    unitPrices[size] = price;
+    priceVersions[size] = version;
+    insertKey(product, size);
+    size++;
+    runningTotal = total;
+  }
+
+  public boolean remove(Product product) {
+    int line = indexOf(product);
+    if (line < 0) {
+      return false;
+    }
+
+    removeKey(product);
+    runningTotal -= unitPrices[line] * quantities[line];
+    int last = size - 1;
+    if (line != last) {
+      products[line] = products[last];
+      quantities[line] = quantities[last];
+      unitPrices[line] = unitPrices[last];
+      priceVersions[line] = priceVersions[last];
+      lines[slotOf(products[line])] = line;
+    }
+    products[last] = null;
+    size--;
+    return true;
+  }
+
+  public void clear() {
+    Arrays.fill(products, 0, size, null);
+    Arrays.fill(keys, null);
+    size = 0;
+    runningTotal = 0L;
+  }
+
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  public double total() {
+    return Money.toDouble(totalMinorUnits(), currency);
+  }
+
+  public long totalMinorUnits() {
+    // Prices can change after a line was added; only lines whose product has been repriced since
+    // are read again and folded into the running total.
+    for (int i = 0; i < size; i++) {
+      long version = products[i].getPriceVersion();
+      if (version != priceVersions[i]) {
+        long price = priceOf(products[i]);
+        runningTotal = reprice(runningTotal, unitPrices[i], quantities[i], price, quantities[i]);
+        unitPrices[i] = price;
+        priceVersions[i] = version;
+      }
+    }
+    return runningTotal;
+  }
+
+  public Map<Product, Integer> asMap() {
+    return view;
+  }
+
+  // Exact like Money, so a total too large for minor units fails instead of wrapping; callers
+  // compute it before touching the line, which an overflow therefore leaves unchanged.
+  private static long reprice(
+      long total, long oldPrice, int oldQuantity, long newPrice, int newQuantity) {
+    return Math.addExact(
+        Math.subtractExact(total, Math.multiplyExact(oldPrice, oldQuantity)),
+        Math.multiplyExact(newPrice, newQuantity));
+  }
+
+  private long priceOf(Product product) {
+    return product.getPriceMinorUnits();
+  }
+
+  private void checkLine(int line) {
+    if (line < 0 || line >= size) {
+      throw new IndexOutOfBoundsException("Line " + line + " out of bounds for " + size + " lines");
+    }
+  }
+
+  private void grow() {
+    int capacity = products.length * 2;
+    products = Arrays.copyOf(products, capacity);
+    quantities = Arrays.copyOf(quantities, capacity);
+    unitPrices = Arrays.copyOf(unitPrices, capacity);
+    priceVersions = Arrays.copyOf(priceVersions, capacity);
+    keys = new Product[capacity * 2];
+    lines = new int[capacity * 2];
+    for (int i = 0; i < size; i++) {
+      insertKey(products[i], i);
+    }
+  }
+
+  private void insertKey(Product product, int line) {
+    int mask = keys.length - 1;
+    int i = hash(product) & mask;
+    while (keys[i] != null) {
+      i = (i + 1) & mask;
+    }
+    keys[i] = product;
+    lines[i] = line;
+  }
+
+  private int slotOf(Product product) {
+    int mask = keys.length - 1;
+    int i = hash(product) & mask;
+    while (keys[i] != product) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  private void removeKey(Product product) {
+    int mask = keys.length - 1;
+    int hole = slotOf(product);
+    keys[hole] = null;
+
+    // Backward-shift deletion keeps probe sequences intact without tombstones.
+    for (int i = (hole + 1) & mask; keys[i] != null; i = (i + 1) & mask) {
+      int home = hash(keys[i]) & mask;
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        keys[hole] = keys[i];
+        lines[hole] = lines[i];
+        keys[i] = null;
+        hole = i;
+      }
+    }
+  }
+
+  private static int hash(Product product) {
+    int hash = System.identityHashCode(product);
+    return hash ^ (hash >>> 16);
+  }
+
+  private class MapView extends AbstractMap<Product, Integer> {
+    private final Set<Map.Entry<Product, Integer>> entries = new EntrySet();
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return key instanceof Product && indexOf((Product) key) >= 0;
+    }
+
+    @Override
+    public Integer get(Object key) {
+      int line = key instanceof Product ? indexOf((Product) key) : -1;
+      return line < 0 ? null : quantities[line];
+    }
+
+    @Override
+    public Set<Map.Entry<Product, Integer>> entrySet() {
+      return entries;
+    }
+  }
+
+  private class EntrySet extends AbstractSet<Map.Entry<Product, Integer>> {
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public Iterator<Map.Entry<Product, Integer>> iterator() {
+      return new Iterator<>() {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+          return next < size;
+        }
+
+        @Override
+        public Map.Entry<Product, Integer> next() {
+          if (next >= size) {
+            throw new NoSuchElementException();
+          }
+          int line = next++;
+          return new AbstractMap.SimpleImmutableEntry<>(products[line], quantities[line]);
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,5 @@
+package org.ecommerce;
+
+public interface MetricsExporter {
+  void export(MetricsSnapshot snapshot);
+}
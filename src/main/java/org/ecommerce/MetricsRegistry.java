@@ -0,0 +1,129 @@
+package org.ecommerce;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MetricsRegistry {
+  private final Clock clock;
+  private final ConcurrentHashMap<String, Counter> counters;
+  private final ConcurrentHashMap<String, LatencyHistogram> histograms;
+  private final CopyOnWriteArrayList<MetricsExporter> exporters;
+  private final LongAdder failedExports;
+  private ScheduledExecutorService publisher;
+
+  public MetricsRegistry() {
+    this(Clock.systemUTC());
+  }
+
+  public MetricsRegistry(Clock clock) {
+    if (clock == null) {
+      throw new IllegalArgumentException("Clock cannot be null");
+    }
+
+    this.clock = clock;
+    this.counters = new ConcurrentHashMap<>();
+    this.histograms = new ConcurrentHashMap<>();
+    this.exporters = new CopyOnWriteArrayList<>();
+    this.failedExports = new LongAdder();
+  }
+
+  public Counter counter(String name) {
+    checkName(name);
+    Counter counter = counters.get(name);
+    return counter != null ? counter : counters.computeIfAbsent(name, Counter::new);
+  }
+
+  public LatencyHistogram histogram(String name) {
+    checkName(name);
+    LatencyHistogram histogram = histograms.get(name);
+    return histogram != null
+        ? histogram
+        : histograms.computeIfAbsent(name, LatencyHistogram::new);
+  }
+
+  public void addExporter(MetricsExporter exporter) {
+    if (exporter == null) {
+      throw new IllegalArgumentException("Exporter cannot be null");
+    }
+
+    exporters.addIfAbsent(exporter);
+  }
+
+  public void removeExporter(MetricsExporter exporter) {
+    if (exporter == null) {
+      throw new IllegalArgumentException("Exporter cannot be null");
+    }
+
+    exporters.remove(exporter);
+  }
+
+  public MetricsSnapshot snapshot() {
+    Map<String, Long> counterValues = new TreeMap<>();
+    for (Counter counter : counters.values()) {
+      counterValues.put(counter.getName(), counter.get());
+    }
+    Map<String, HistogramSnapshot> histogramSnapshots = new TreeMap<>();
+    for (LatencyHistogram histogram : histograms.values()) {
+      histogramSnapshots.put(histogram.getName(), histogram.snapshot());
+    }
+    return new MetricsSnapshot(clock.instant(), counterValues, histogramSnapshots);
+  }
+
+  public void publish() {
+    if (exporters.isEmpty()) {
+      return;
+    }
+
+    MetricsSnapshot snapshot = snapshot();
+    for (MetricsExporter exporter : exporters) {
+      try {
+        exporter.export(snapshot);
+      } catch (RuntimeException e) {
+        failedExports.increment();
+      }
+    }
+  }
+
+  public long getFailedExportCount() {
+    return failedExports.sum();
+  }
+
+  public synchronized void startPublishing(Duration interval) {
+    if (interval == null || interval.isZero() || interval.isNegative()) {
+      throw new IllegalArgumentException("Publish interval must be positive");
+    }
+    if (publisher != null) {
+      return;
+    }
+
+    publisher =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("metrics-publisher").daemon().factory());
+    publisher.scheduleAtFixedRate(
+        this::publish, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void stopPublishing() throws InterruptedException {
+    if (publisher == null) {
+      return;
+    }
+
+    publisher.shutdown();
+    publisher.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    publisher = null;
+  }
+
+  private static void checkName(String name) {
+    if (name == null || name.trim().isEmpty()) {
+      throw new IllegalArgumentException("Metric name cannot be null or empty");
+    }
+  }
+}
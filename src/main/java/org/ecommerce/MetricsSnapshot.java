@@ -0,0 +1,38 @@
+package org.ecommerce;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+public class MetricsSnapshot {
+  private final Instant capturedAt;
+  private final Map<String, Long> counters;
+  private final Map<String, HistogramSnapshot> histograms;
+
+  MetricsSnapshot(
+      Instant capturedAt, Map<String, Long> counters, Map<String, HistogramSnapshot> histograms) {
+    this.capturedAt = capturedAt;
+    this.counters = Collections.unmodifiableMap(counters);
+    this.histograms = Collections.unmodifiableMap(histograms);
+  }
+
+  public Instant getCapturedAt() {
+    return capturedAt;
+  }
+
+  public Map<String, Long> getCounters() {
+    return counters;
+  }
+
+  public Map<String, HistogramSnapshot> getHistograms() {
+    return histograms;
+  }
+
+  public long getCounter(String name) {
+    return counters.getOrDefault(name, 0L);
+  }
+
+  public HistogramSnapshot getHistogram(String name) {
+    return histograms.get(name);
+  }
+}
@@ -0,0 +1,141 @@
+package org.ecommerce;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+public final class Money implements Comparable<Money> {
+  public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+  private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L};
+
+  private final long minorUnits;
+  private final Currency currency;
+
+  private Money(long minorUnits, Currency currency) {
+    this.minorUnits = minorUnits;
+    this.currency = currency;
+  }
+
+  public static Money ofMinorUnits(long minorUnits, Currency currency) {
+    scaleOf(currency);
+    return new Money(minorUnits, currency);
+  }
+
+  public static Money of(double amount, Currency currency) {
+    return new Money(toMinorUnits(amount, currency), currency);
+  }
+
+  public static Money zero(Currency currency) {
+    return ofMinorUnits(0L, currency);
+  }
+
+  public static long toMinorUnits(double amount, Currency currency) {
+    if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+      throw new IllegalArgumentException("Amount must be finite");
+    }
+
+    double scaled = amount * scaleOf(currency);
+    if (Math.abs(scaled) >= Long.MAX_VALUE) {
+      throw new ArithmeticException("Amount overflows minor units");
+    }
+    return (long) Math.rint(scaled);
+  }
+
+  public static double toDouble(long minorUnits, Currency currency) {
+    return minorUnits / (double) scaleOf(currency);
+  }
+
+  public long getMinorUnits() {
+    return minorUnits;
+  }
+
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  public double toDouble() {
+    return toDouble(minorUnits, currency);
+  }
+
+  public boolean isNegative() {
+    return minorUnits < 0;
+  }
+
+  public Money plus(Money other) {
+    checkCurrency(other);
+    return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+  }
+
+  public Money minus(Money other) {
+    checkCurrency(other);
+    return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+  }
+
+  public Money times(long quantity) {
+    return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+  }
+
+  public Money times(double factor) {
+    return new Money(multiply(minorUnits, factor), currency);
+  }
+
+  public static long multiply(long minorUnits, double factor) {
+    // Rounds half to even, the usual banker's rounding for monetary amounts.
+    double scaled = minorUnits * factor;
+    if (Double.isNaN(scaled) || Math.abs(scaled) >= Long.MAX_VALUE) {
+      throw new ArithmeticException("Amount overflows minor units");
+    }
+    return (long) Math.rint(scaled);
+  }
+
+  @Override
+  public int compareTo(Money other) {
+    checkCurrency(other);
+    return Long.compare(minorUnits, other.minorUnits);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof Money)) {
+      return false;
+    }
+    Money money = (Money) other;
+    return minorUnits == money.minorUnits && currency.equals(money.currency);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(minorUnits) * 31 + currency.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits()).toPlainString()
+        + " "
+        + currency.getCurrencyCode();
+  }
+
+  private void checkCurrency(Money other) {
+    if (other == null) {
+      throw new IllegalArgumentException("Amount cannot be null");
+    }
+    if (!currency.equals(other.currency)) {
+      throw new IllegalArgumentException("Currencies do not match");
+    }
+  }
+
+  private static long scaleOf(Currency currency) {
+    if (currency == null) {
+      throw new IllegalArgumentException("Currency cannot be null");
+    }
+
+    int digits = currency.getDefaultFractionDigits();
+    if (digits < 0 || digits >= POWERS_OF_TEN.length) {
+      throw new IllegalArgumentException("Currency has no fixed minor unit");
+    }
+    return POWERS_OF_TEN[digits];
+  }
+}
@@ -0,0 +1,29 @@
+package org.ecommerce;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.ecommerce.NotificationDispatch")
+@Label("Notification Dispatch")
+@Category({"E-commerce", "Checkout"})
+@StackTrace(false)
+class NotificationDispatchEvent extends Event {
+  // A single order ID, or a comma-separated list when a whole batch was dispatched at once.
+  @Label("Order ID")
+  String orderId;
+
+  @Label("New Status")
+  String newStatus;
+
+  @Label("Batch Size")
+  int batchSize;
+
+  @Label("Observer Count")
+  int observerCount;
+
+  @Label("Failed Deliveries")
+  int failedDeliveries;
+}
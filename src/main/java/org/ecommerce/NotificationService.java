@@ -1,13 +1,87 @@
 package org.ecommerce;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class NotificationService {
-  private List<OrderObserver> observers;
+public class NotificationService implements OrderStatusListener {
+  public enum BackpressurePolicy {
+    BLOCK,
+    DROP_NEWEST,
+    DROP_OLDEST,
+    CALLER_RUNS
+  }
+
+  private static final long POLL_INTERVAL_MILLIS = 50;
+  private static final OrderObserver[] NO_OBSERVERS = new OrderObserver[0];
+
+  private final Set<OrderObserver> registered;
+  private volatile OrderObserver[] observers;
+  private final BlockingQueue<OrderStatusEvent> queue;
+  private final int maxBatchSize;
+  private final BackpressurePolicy backpressurePolicy;
+  private final ExecutorService dispatcher;
+  private final LongAdder droppedEvents;
+  private final LongAdder failedDeliveries;
+  // Producers hold the read side from their running check until the event is queued, so shutdown
+  // cannot slip in between and strand an event in a queue nobody drains any more.
+  private final Lock enqueueLock;
+  private final Lock shutdownLock;
+  private volatile boolean running;
+  private volatile LatencyHistogram fanOutLatency;
 
   public NotificationService() {
-    this.observers = new ArrayList<>();
+    this.registered = Collections.newSetFromMap(new IdentityHashMap<>());
+    this.observers = NO_OBSERVERS;
+    this.queue = null;
+    this.maxBatchSize = 1;
+    this.backpressurePolicy = null;
+    this.dispatcher = null;
+    this.droppedEvents = new LongAdder();
+    this.failedDeliveries = new LongAdder();
+    this.enqueueLock = null;
+    this.shutdownLock = null;
+  }
+
+  public NotificationService(
+      int queueCapacity, int maxBatchSize, BackpressurePolicy backpressurePolicy) {
+    if (queueCapacity <= 0) {
+      throw new IllegalArgumentException("Queue capacity must be positive");
+    }
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive");
+    }
+    if (backpressurePolicy == null) {
+      throw new IllegalArgumentException("Backpressure policy cannot be null");
+    }
+
+    this.registered = Collections.newSetFromMap(new IdentityHashMap<>());
+    this.observers = NO_OBSERVERS;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.maxBatchSize = maxBatchSize;
+    this.backpressurePolicy = backpressurePolicy;
+    this.droppedEvents = new LongAdder();
+    this.failedDeliveries = new LongAdder();
+    ReentrantReadWriteLock lifecycle = new ReentrantReadWriteLock();
+    this.enqueueLock = lifecycle.readLock();
+    this.shutdownLock = lifecycle.writeLock();
+    this.running = true;
+    this.dispatcher =
+        Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("order-notification-dispatcher").factory());
+    this.dispatcher.execute(this::dispatchLoop);
   }
 
   public void addObserver(OrderObserver observer) {
@@ -15,8 +89,13 @@ public class NotificationService {
       throw new IllegalArgumentException("Observer cannot be null");
     }
 
-    if (!observers.contains(observer)) {
-      observers.add(observer);
+    synchronized (registered) {
+      if (registered.add(observer)) {
+        OrderObserver[] current = observers;
+        OrderObserver[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = observer;
+        observers = updated;
+      }
     }
   }
 
@@ -25,7 +104,35 @@ public class NotificationService {
       throw new IllegalArgumentException("Observer cannot be null");
     }
 
-    observers.remove(observer);
+    synchronized (registered) {
+      if (registered.remove(observer)) {
+        OrderObserver[] current = observers;
+        OrderObserver[] updated = new OrderObserver[current.length - 1];
+        int next = 0;
+        for (OrderObserver existing : current) {
+          if (existing != observer) {
+            updated[next++] = existing;
+          }
+        }
+        observers = updated;
+      }
+    }
+  }
+
+  public boolean isAsync() {
+    return dispatcher != null;
+  }
+
+  public long getDroppedEventCount() {
+    return droppedEvents.sum();
+  }
+
+  public long getFailedDeliveryCount() {
+    return failedDeliveries.sum();
+  }
+
+  public int getPendingEventCount() {
+    return queue == null ? 0 : queue.size();
   }
 
   public void notifyOrderStatusChange(Order order, Order.Status newStatus) {
@@ -36,8 +143,166 @@ public class NotificationService {
       throw new IllegalArgumentException("New status cannot be null");
     }
 
-    for (OrderObserver observer : observers) {
-      observer.onOrderStatusChange(order, newStatus);
+    if (!isAsync()) {
+      NotificationDispatchEvent dispatch = new NotificationDispatchEvent();
+      dispatch.begin();
+      LatencyHistogram latency = fanOutLatency;
+      long start = latency == null ? 0L : System.nanoTime();
+      OrderObserver[] current = observers;
+      for (OrderObserver observer : current) {
+        observer.onOrderStatusChange(order, newStatus);
+      }
+      if (latency != null) {
+        latency.recordSince(start);
+      }
+
+      dispatch.end();
+      if (dispatch.shouldCommit()) {
+        dispatch.orderId = order.getId();
+        dispatch.newStatus = newStatus.name();
+        dispatch.batchSize = 1;
+        dispatch.observerCount = current.length;
+        dispatch.commit();
+      }
+      return;
+    }
+
+    OrderStatusEvent event = new OrderStatusEvent(order, newStatus);
+    boolean queued;
+    enqueueLock.lock();
+    try {
+      if (!running) {
+        throw new IllegalStateException("Notification service has been shut down");
+      }
+      queued = enqueue(event);
+    } finally {
+      enqueueLock.unlock();
+    }
+    if (!queued) {
+      deliver(List.of(event));
+    }
+  }
+
+  @Override
+  public void onStatusTransition(Order order, Order.Status previousStatus, Order.Status newStatus) {
+    notifyOrderStatusChange(order, newStatus);
+  }
+
+  public void setMetricsRegistry(MetricsRegistry registry) {
+    fanOutLatency = registry == null ? null : registry.histogram("notification.fanOut.latency");
+  }
+
+  public void shutdown() throws InterruptedException {
+    if (!isAsync()) {
+      return;
+    }
+
+    shutdownLock.lock();
+    try {
+      running = false;
+    } finally {
+      shutdownLock.unlock();
+    }
+    dispatcher.shutdown();
+    dispatcher.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+    // Nothing can be queued any more, so whatever an interrupted dispatcher left behind is
+    // delivered here rather than lost.
+    List<OrderStatusEvent> remaining = new ArrayList<>();
+    while (queue.drainTo(remaining, maxBatchSize) > 0) {
+      deliver(remaining);
+      remaining.clear();
+    }
+  }
+
+  // Returns false when the caller has to deliver the event itself.
+  private boolean enqueue(OrderStatusEvent event) {
+    switch (backpressurePolicy) {
+      case BLOCK:
+        try {
+          queue.put(event);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          droppedEvents.increment();
+        }
+        break;
+      case DROP_NEWEST:
+        if (!queue.offer(event)) {
+          droppedEvents.increment();
+        }
+        break;
+      case DROP_OLDEST:
+        while (!queue.offer(event)) {
+          if (queue.poll() != null) {
+            droppedEvents.increment();
+          }
+        }
+        break;
+      case CALLER_RUNS:
+        return queue.offer(event);
+    }
+    return true;
+  }
+
+  private void dispatchLoop() {
+    List<OrderStatusEvent> batch = new ArrayList<>(maxBatchSize);
+    while (running || !queue.isEmpty()) {
+      OrderStatusEvent first;
+      try {
+        first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (first == null) {
+        continue;
+      }
+
+      batch.add(first);
+      queue.drainTo(batch, maxBatchSize - 1);
+      deliver(batch);
+      batch.clear();
+    }
+  }
+
+  private void deliver(List<OrderStatusEvent> events) {
+    NotificationDispatchEvent dispatch = new NotificationDispatchEvent();
+    dispatch.begin();
+    LatencyHistogram latency = fanOutLatency;
+    long start = latency == null ? 0L : System.nanoTime();
+    List<OrderStatusEvent> delivered = maxBatchSize > 1 ? List.copyOf(events) : events;
+    OrderObserver[] current = observers;
+    int failures = 0;
+    for (OrderObserver observer : current) {
+      try {
+        if (maxBatchSize > 1) {
+          observer.onOrderStatusChanges(delivered);
+        } else {
+          for (OrderStatusEvent event : delivered) {
+            observer.onOrderStatusChange(event.getOrder(), event.getNewStatus());
+          }
+        }
+      } catch (RuntimeException e) {
+        failedDeliveries.increment();
+        failures++;
+      }
+    }
+    if (latency != null) {
+      latency.recordSince(start);
+    }
+
+    dispatch.end();
+    if (dispatch.shouldCommit()) {
+      StringJoiner orderIds = new StringJoiner(",");
+      for (OrderStatusEvent statusEvent : delivered) {
+        orderIds.add(statusEvent.getOrder().getId());
+      }
+      dispatch.orderId = orderIds.toString();
+      dispatch.newStatus = delivered.size() == 1 ? delivered.get(0).getNewStatus().name() : null;
+      dispatch.batchSize = delivered.size();
+      dispatch.observerCount = current.length;
+      dispatch.failedDeliveries = failures;
+      dispatch.commit();
     }
   }
 }
@@ -1,7 +1,13 @@
 package org.ecommerce;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Currency;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class Order {
   public enum Status {
@@ -9,33 +15,92 @@ public class Order {
     PROCESSING,
     SHIPPED,
     DELIVERED,
-    CANCELLED
+    CANCELLED;
+
+    public boolean canTransitionTo(Status next) {
+      if (next == this) {
+        return true;
+      }
+
+      switch (this) {
+        case PENDING:
+          return next == PROCESSING || next == CANCELLED;
+        case PROCESSING:
+          return next == SHIPPED || next == CANCELLED;
+        case SHIPPED:
+          return next == DELIVERED;
+        default:
+          return false;
+      }
+    }
   }
 
   private String id;
   private User user;
   private Map<Product, Integer> items;
-  private double total;
-  private Status status;
+  private long totalMinorUnits;
+  private Currency currency;
+  private final AtomicReference<Status> status = new AtomicReference<>();
+  private final Object transitionLock = new Object();
+  private Instant createdAt;
+  private final CopyOnWriteArrayList<OrderStatusListener> statusListeners =
+      new CopyOnWriteArrayList<>();
 
   public Order(String id, ShoppingCart cart) {
+    this(id, cart, Clock.systemUTC());
+  }
+
+  public Order(String id, ShoppingCart cart, Clock clock) {
     if (id == null || id.trim().isEmpty()) {
       throw new IllegalArgumentException("Order ID cannot be null or empty");
     }
     if (cart == null) {
       throw new IllegalArgumentException("Shopping cart cannot be null");
     }
+    if (clock == null) {
+      throw new IllegalArgumentException("Clock cannot be null");
+    }
     if (cart.getItems().isEmpty()) {
       throw new IllegalArgumentException("Cannot create order from empty cart");
     }
 
+    OrderCreatedEvent event = new OrderCreatedEvent();
+    event.begin();
     this.id = id;
     this.user = cart.getUser();
     this.items = new HashMap<>(cart.getItems());
-    this.total = cart.calculateTotal();
-    this.status = Status.PENDING;
+    Money total = cart.calculateTotalAmount();
+    this.currency = total.getCurrency();
+    this.totalMinorUnits = total.getMinorUnits();
+    this.status.set(Status.PENDING);
+    this.createdAt = clock.instant();
 
     cart.clear();
+    event.end();
+    if (event.shouldCommit()) {
+      event.orderId = id;
+      event.userId = user == null ? null : user.getId();
+      event.lineCount = items.size();
+      event.totalMinorUnits = totalMinorUnits;
+      event.currency = currency.getCurrencyCode();
+      event.commit();
+    }
+  }
+
+  Order(
+      String id,
+      User user,
+      Map<Product, Integer> items,
+      Money total,
+      Status status,
+      Instant createdAt) {
+    this.id = id;
+    this.user = user;
+    this.items = new HashMap<>(items);
+    this.totalMinorUnits = total.getMinorUnits();
+    this.currency = total.getCurrency();
+    this.status.set(status);
+    this.createdAt = createdAt;
   }
 
   public String getId() {
@@ -51,17 +116,83 @@ public class Order {
   }
 
   public double getTotal() {
-    return total;
+    return Money.toDouble(totalMinorUnits, currency);
+  }
+
+  public Money getTotalAmount() {
+    return Money.ofMinorUnits(totalMinorUnits, currency);
+  }
+
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
   }
 
   public Status getStatus() {
-    return status;
+    return status.get();
   }
 
   public void setStatus(Status status) {
+    transitionTo(
+        status,
+        failure -> {
+          throw failure;
+        });
+  }
+
+  Status transitionTo(Status status, Consumer<RuntimeException> onListenerFailure) {
+    // Applying and announcing happen under one lock, so listeners such as history indexes see this
+    // order's transitions one at a time and in the order they were applied.
+    synchronized (transitionLock) {
+      Status previousStatus = advanceTo(status);
+      if (previousStatus != status) {
+        for (OrderStatusListener listener : statusListeners) {
+          try {
+            listener.onStatusTransition(this, previousStatus, status);
+          } catch (RuntimeException e) {
+            onListenerFailure.accept(e);
+          }
+        }
+      }
+      return previousStatus;
+    }
+  }
+
+  private Status advanceTo(Status status) {
     if (status == null) {
       throw new IllegalArgumentException("Status cannot be null");
     }
-    this.status = status;
+
+    // Validation and the write are one compare-and-set, so of two competing transitions from the
+    // same status only one is applied and only its caller goes on to publish it.
+    while (true) {
+      Status previousStatus = this.status.get();
+      if (!previousStatus.canTransitionTo(status)) {
+        throw new IllegalArgumentException(
+            "Cannot transition order from " + previousStatus + " to " + status);
+      }
+      if (previousStatus == status || this.status.compareAndSet(previousStatus, status)) {
+        return previousStatus;
+      }
+    }
+  }
+
+  public void addStatusListener(OrderStatusListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Status listener cannot be null");
+    }
+
+    statusListeners.addIfAbsent(listener);
+  }
+
+  public void removeStatusListener(OrderStatusListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Status listener cannot be null");
+    }
+
+    statusListeners.remove(listener);
   }
 }
@@ -0,0 +1,28 @@
+package org.ecommerce;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.ecommerce.OrderCreated")
+@Label("Order Created")
+@Category({"E-commerce", "Checkout"})
+@StackTrace(false)
+class OrderCreatedEvent extends Event {
+  @Label("Order ID")
+  String orderId;
+
+  @Label("User ID")
+  String userId;
+
+  @Label("Line Count")
+  int lineCount;
+
+  @Label("Total (minor units)")
+  long totalMinorUnits;
+
+  @Label("Currency")
+  String currency;
+}
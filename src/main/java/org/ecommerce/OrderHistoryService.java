@@ -1,16 +1,70 @@
 package org.ecommerce;
 
+import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class OrderHistoryService {
-  private Map<String, List<Order>> userOrders;
+public class OrderHistoryService implements OrderStatusListener {
+  private static final int DEFAULT_SHARDS = 16;
+  private static final int STREAM_CHUNK = 64;
+
+  private final Shard[] shards;
+  private final AtomicLong sequence;
+  private final OrderLog orderLog;
+  private final StatusIndexer statusIndexer;
+  private volatile LatencyHistogram addOrderLatency;
+  private volatile LatencyHistogram userQueryLatency;
+  private volatile LatencyHistogram statusQueryLatency;
 
   public OrderHistoryService() {
-    this.userOrders = new HashMap<>();
+    this(DEFAULT_SHARDS);
+  }
+
+  public OrderHistoryService(int shardCount) {
+    this(null, shardCount);
+  }
+
+  public OrderHistoryService(OrderLog orderLog) {
+    this(requireLog(orderLog), DEFAULT_SHARDS);
+  }
+
+  public OrderHistoryService(OrderLog orderLog, int shardCount) {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("Shard count must be positive");
+    }
+
+    this.shards = new Shard[shardCount == 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1];
+    for (int i = 0; i < shards.length; i++) {
+      shards[i] = new Shard();
+    }
+    this.sequence = new AtomicLong();
+    this.orderLog = orderLog;
+    this.statusIndexer = new StatusIndexer(shards, sequence, orderLog);
+    // Replay still rebuilds every logged order on the heap; paging cold orders in from the log
+    // through OrderLog.read is not done yet, so heap use grows with the whole history.
+    if (orderLog != null) {
+      for (Order order : orderLog.replay()) {
+        index(order, false);
+      }
+    }
   }
 
   public void addOrder(Order order) {
@@ -18,12 +72,15 @@ public class OrderHistoryService {
       throw new IllegalArgumentException("Order cannot be null");
     }
 
-    String userId = order.getUser().getId();
-    if (!userOrders.containsKey(userId)) {
-      userOrders.put(userId, new ArrayList<>());
-    }
+    LatencyHistogram latency = addOrderLatency;
+    long start = startTimer(latency);
+    index(order, orderLog != null);
+    stopTimer(latency, start);
+  }
 
-    userOrders.get(userId).add(order);
+  @Override
+  public void onStatusTransition(Order order, Order.Status previousStatus, Order.Status newStatus) {
+    statusIndexer.onStatusTransition(order, previousStatus, newStatus);
   }
 
   public List<Order> getUserOrders(User user) {
@@ -31,7 +88,19 @@ public class OrderHistoryService {
       throw new IllegalArgumentException("User cannot be null");
     }
 
-    return userOrders.getOrDefault(user.getId(), new ArrayList<>());
+    LatencyHistogram latency = userQueryLatency;
+    long start = startTimer(latency);
+    Shard shard = shardOf(user.getId());
+    shard.lock.lock();
+    try {
+      UserHistory history = shard.userHistories.get(user.getId());
+      return history == null
+          ? new ArrayList<>()
+          : new ArrayList<>(Arrays.asList(history.orders.toArray()));
+    } finally {
+      shard.lock.unlock();
+      stopTimer(latency, start);
+    }
   }
 
   public List<Order> getUserOrdersByStatus(User user, Order.Status status) {
@@ -42,16 +111,507 @@ public class OrderHistoryService {
       throw new IllegalArgumentException("Status cannot be null");
     }
 
-    return getUserOrders(user).stream()
-        .filter(order -> order.getStatus() == status)
-        .collect(Collectors.toList());
+    LatencyHistogram latency = userQueryLatency;
+    long start = startTimer(latency);
+    Shard shard = shardOf(user.getId());
+    shard.lock.lock();
+    try {
+      UserHistory history = shard.userHistories.get(user.getId());
+      return history == null
+          ? new ArrayList<>()
+          : new ArrayList<>(history.ordersByStatus.get(status).values());
+    } finally {
+      shard.lock.unlock();
+      stopTimer(latency, start);
+    }
+  }
+
+  public OrderPage getUserOrdersPage(User user, String cursor, int pageSize) {
+    LatencyHistogram latency = userQueryLatency;
+    long start = startTimer(latency);
+    OrderPage page = page(timelineOf(user), cursor, pageSize);
+    stopTimer(latency, start);
+    return page;
+  }
+
+  public OrderPage getUserOrdersPage(
+      User user, Order.Status status, String cursor, int pageSize) {
+    if (user == null) {
+      throw new IllegalArgumentException("User cannot be null");
+    }
+    if (status == null) {
+      throw new IllegalArgumentException("Status cannot be null");
+    }
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive");
+    }
+
+    int before = cursor == null ? Integer.MAX_VALUE : positionOf(cursor);
+    LatencyHistogram latency = userQueryLatency;
+    long start = startTimer(latency);
+    Shard shard = shardOf(user.getId());
+    shard.lock.lock();
+    try {
+      UserHistory history = shard.userHistories.get(user.getId());
+      if (history == null) {
+        return new OrderPage(new ArrayList<>(), null);
+      }
+
+      // The status index is keyed by timeline position, so a page only touches orders in that
+      // status and its cursor means the same as one from the unfiltered timeline.
+      NavigableMap<Integer, Order> older =
+          history.ordersByStatus.get(status).headMap(before, false).descendingMap();
+      List<Order> page = new ArrayList<>(Math.min(pageSize, older.size()));
+      int last = before;
+      for (Map.Entry<Integer, Order> entry : older.entrySet()) {
+        if (page.size() == pageSize) {
+          return new OrderPage(page, Integer.toString(last));
+        }
+        page.add(entry.getValue());
+        last = entry.getKey();
+      }
+      return new OrderPage(page, null);
+    } finally {
+      shard.lock.unlock();
+      stopTimer(latency, start);
+    }
+  }
+
+  public Stream<Order> streamUserOrders(User user) {
+    OrderTimeline timeline = timelineOf(user);
+    return timeline == null
+        ? Stream.empty()
+        : stream(timeline.newestFirst(Integer.MAX_VALUE, order -> true));
+  }
+
+  public Stream<Order> streamUserOrders(User user, Order.Status status) {
+    if (user == null) {
+      throw new IllegalArgumentException("User cannot be null");
+    }
+    if (status == null) {
+      throw new IllegalArgumentException("Status cannot be null");
+    }
+
+    StatusOrders orders = new StatusOrders(shardOf(user.getId()), user.getId(), status);
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(orders, Spliterator.ORDERED | Spliterator.NONNULL),
+        false);
+  }
+
+  public Stream<Order> streamUserOrders(User user, Instant from, Instant until) {
+    if (from == null || until == null) {
+      throw new IllegalArgumentException("Date range cannot be null");
+    }
+    if (!until.isAfter(from)) {
+      throw new IllegalArgumentException("Date range must end after it starts");
+    }
+
+    OrderTimeline timeline = timelineOf(user);
+    return timeline == null ? Stream.empty() : stream(timeline.newestFirst(from, until));
+  }
+
+  public List<Order> getOrdersByStatus(Order.Status status) {
+    if (status == null) {
+      throw new IllegalArgumentException("Status cannot be null");
+    }
+
+    // Scatter-gather: each shard is locked only while its own slice is copied, so a global query
+    // never stalls ingest on more than one shard at a time. Slices are already in sequence order
+    // and are merged back into the order in which orders entered the status.
+    LatencyHistogram latency = statusQueryLatency;
+    long start = startTimer(latency);
+    PriorityQueue<Slice> slices = new PriorityQueue<>();
+    int total = 0;
+    for (Shard shard : shards) {
+      shard.lock.lock();
+      try {
+        Map<Order, Long> entries = shard.ordersByStatus.get(status);
+        if (!entries.isEmpty()) {
+          slices.add(new Slice(new ArrayList<>(entries.entrySet())));
+          total += entries.size();
+        }
+      } finally {
+        shard.lock.unlock();
+      }
+    }
+
+    List<Order> orders = new ArrayList<>(total);
+    while (!slices.isEmpty()) {
+      Slice slice = slices.poll();
+      orders.add(slice.entries.get(slice.next++).getKey());
+      if (slice.next < slice.entries.size()) {
+        slices.add(slice);
+      }
+    }
+    stopTimer(latency, start);
+    return orders;
+  }
+
+  public int getUserOrderCount(User user, Order.Status status) {
+    if (user == null) {
+      throw new IllegalArgumentException("User cannot be null");
+    }
+    if (status == null) {
+      throw new IllegalArgumentException("Status cannot be null");
+    }
+
+    LatencyHistogram latency = userQueryLatency;
+    long start = startTimer(latency);
+    Shard shard = shardOf(user.getId());
+    shard.lock.lock();
+    try {
+      UserHistory history = shard.userHistories.get(user.getId());
+      return history == null ? 0 : history.ordersByStatus.get(status).size();
+    } finally {
+      shard.lock.unlock();
+      stopTimer(latency, start);
+    }
   }
 
   public double getTotalUserSpending(User user) {
+    return getTotalUserSpendingAmount(user).toDouble();
+  }
+
+  public Money getTotalUserSpendingAmount(User user) {
+    // Amounts in different currencies cannot be added, so a single total only exists for a user
+    // who has spent in one currency at most.
+    Map<Currency, Money> totals = getTotalUserSpendingByCurrency(user);
+    if (totals.size() > 1) {
+      throw new IllegalStateException("User has spending in more than one currency");
+    }
+    return totals.isEmpty()
+        ? Money.zero(Money.DEFAULT_CURRENCY)
+        : totals.values().iterator().next();
+  }
+
+  public Map<Currency, Money> getTotalUserSpendingByCurrency(User user) {
     if (user == null) {
       throw new IllegalArgumentException("User cannot be null");
     }
 
-    return getUserOrders(user).stream().mapToDouble(Order::getTotal).sum();
+    Map<Currency, Money> totals = new HashMap<>();
+    Shard shard = shardOf(user.getId());
+    shard.lock.lock();
+    try {
+      UserHistory history = shard.userHistories.get(user.getId());
+      if (history != null) {
+        for (Map.Entry<Currency, Long> entry : history.spending.entrySet()) {
+          totals.put(entry.getKey(), Money.ofMinorUnits(entry.getValue(), entry.getKey()));
+        }
+      }
+    } finally {
+      shard.lock.unlock();
+    }
+    return totals;
+  }
+
+  public Money getTotalUserSpendingAmount(User user, Currency currency) {
+    if (currency == null) {
+      throw new IllegalArgumentException("Currency cannot be null");
+    }
+
+    return Money.ofMinorUnits(totalSpendingOf(user, currency), currency);
+  }
+
+  public int getShardCount() {
+    return shards.length;
+  }
+
+  public void setMetricsRegistry(MetricsRegistry registry) {
+    addOrderLatency = registry == null ? null : registry.histogram("orderHistory.addOrder.latency");
+    userQueryLatency =
+        registry == null ? null : registry.histogram("orderHistory.userQuery.latency");
+    statusQueryLatency =
+        registry == null ? null : registry.histogram("orderHistory.statusQuery.latency");
+  }
+
+  private static long startTimer(LatencyHistogram latency) {
+    return latency == null ? 0L : System.nanoTime();
+  }
+
+  private static void stopTimer(LatencyHistogram latency, long start) {
+    if (latency != null) {
+      latency.recordSince(start);
+    }
+  }
+
+  private OrderTimeline timelineOf(User user) {
+    if (user == null) {
+      throw new IllegalArgumentException("User cannot be null");
+    }
+
+    // Only the lookup needs the shard lock; the timeline itself is read lock-free and lazily.
+    Shard shard = shardOf(user.getId());
+    shard.lock.lock();
+    try {
+      UserHistory history = shard.userHistories.get(user.getId());
+      return history == null ? null : history.orders;
+    } finally {
+      shard.lock.unlock();
+    }
+  }
+
+  private static OrderPage page(OrderTimeline timeline, String cursor, int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive");
+    }
+
+    int before = cursor == null ? Integer.MAX_VALUE : positionOf(cursor);
+    if (timeline == null) {
+      return new OrderPage(new ArrayList<>(), null);
+    }
+
+    OrderTimeline.NewestFirst orders = timeline.newestFirst(before, order -> true);
+    List<Order> page = new ArrayList<>(pageSize);
+    while (page.size() < pageSize && orders.hasNext()) {
+      page.add(orders.next());
+    }
+    return new OrderPage(page, orders.hasNext() ? Integer.toString(orders.resumePoint()) : null);
+  }
+
+  private static int positionOf(String cursor) {
+    // Cursors are positions in an append-only timeline, so they stay valid as new orders arrive.
+    try {
+      int position = Integer.parseInt(cursor);
+      if (position >= 0) {
+        return position;
+      }
+    } catch (NumberFormatException e) {
+      // Falls through to the invalid cursor error below.
+    }
+    throw new IllegalArgumentException("Invalid cursor");
+  }
+
+  private static Stream<Order> stream(OrderTimeline.NewestFirst orders) {
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+            orders, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE),
+        false);
+  }
+
+  private long totalSpendingOf(User user, Currency currency) {
+    if (user == null) {
+      throw new IllegalArgumentException("User cannot be null");
+    }
+
+    Shard shard = shardOf(user.getId());
+    shard.lock.lock();
+    try {
+      UserHistory history = shard.userHistories.get(user.getId());
+      return history == null ? 0L : history.spending.getOrDefault(currency, 0L);
+    } finally {
+      shard.lock.unlock();
+    }
+  }
+
+  private void index(Order order, boolean append) {
+    String userId = order.getUser().getId();
+    Shard shard = shardOf(userId);
+    shard.lock.lock();
+    try {
+      UserHistory history = shard.userHistories.get(userId);
+      if (history != null && history.positions.containsKey(order.getId())) {
+        throw new IllegalArgumentException("Order already exists in history");
+      }
+      // The order is logged under the shard lock before it is indexed, so the log never records a
+      // status change ahead of the order it belongs to, and a failed append leaves no trace.
+      if (append) {
+        orderLog.append(order);
+      }
+      if (history == null) {
+        history = new UserHistory();
+        shard.userHistories.put(userId, history);
+      }
+      int position = history.orders.size();
+      history.positions.put(order.getId(), position);
+      history.orders.append(order);
+      // Spending is summed exactly in minor units, separately per currency, since amounts in
+      // different currencies cannot be added together.
+      Money total = order.getTotalAmount();
+      history.spending.merge(total.getCurrency(), total.getMinorUnits(), Math::addExact);
+      history.ordersByStatus.get(order.getStatus()).put(position, order);
+      shard.ordersByStatus.get(order.getStatus()).put(order, sequence.incrementAndGet());
+      // A transition made before the listener was registered went unseen, so the index catches up.
+      order.addStatusListener(statusIndexer);
+      statusIndexer.reconcile(shard, history, order);
+    } finally {
+      shard.lock.unlock();
+    }
+  }
+
+  private static Order.Status indexedStatusOf(UserHistory history, Order order) {
+    Integer position = history.positions.get(order.getId());
+    if (position == null) {
+      return null;
+    }
+    for (Map.Entry<Order.Status, NavigableMap<Integer, Order>> entry :
+        history.ordersByStatus.entrySet()) {
+      if (entry.getValue().get(position) == order) {
+        return entry.getKey();
+      }
+    }
+    return null;
+  }
+
+  private Shard shardOf(String userId) {
+    return shardOf(shards, userId);
+  }
+
+  private static Shard shardOf(Shard[] shards, String userId) {
+    int hash = userId.hashCode();
+    return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+  }
+
+  private static OrderLog requireLog(OrderLog orderLog) {
+    if (orderLog == null) {
+      throw new IllegalArgumentException("Order log cannot be null");
+    }
+    return orderLog;
+  }
+
+  private static Map<Order.Status, NavigableMap<Integer, Order>> newStatusIndex() {
+    Map<Order.Status, NavigableMap<Integer, Order>> index = new EnumMap<>(Order.Status.class);
+    for (Order.Status status : Order.Status.values()) {
+      index.put(status, new TreeMap<>());
+    }
+    return index;
+  }
+
+  // Orders report their transitions here rather than to the service itself, so replaying the log
+  // from the constructor never hands out a reference to a half-constructed service.
+  private static class StatusIndexer implements OrderStatusListener {
+    private final Shard[] shards;
+    private final AtomicLong sequence;
+    private final OrderLog orderLog;
+
+    private StatusIndexer(Shard[] shards, AtomicLong sequence, OrderLog orderLog) {
+      this.shards = shards;
+      this.sequence = sequence;
+      this.orderLog = orderLog;
+    }
+
+    @Override
+    public void onStatusTransition(
+        Order order, Order.Status previousStatus, Order.Status newStatus) {
+      Shard shard = shardOf(shards, order.getUser().getId());
+      shard.lock.lock();
+      try {
+        UserHistory history = shard.userHistories.get(order.getUser().getId());
+        if (history != null) {
+          reconcile(shard, history, order);
+        }
+      } finally {
+        shard.lock.unlock();
+      }
+    }
+
+    private void reconcile(Shard shard, UserHistory history, Order order) {
+      Order.Status indexed = indexedStatusOf(history, order);
+      // Transitions applied through different paths may be announced out of order, so the index
+      // follows the order's current status instead of trusting the transition it was handed.
+      Order.Status current = order.getStatus();
+      if (indexed == null || indexed == current) {
+        return;
+      }
+
+      int position = history.positions.get(order.getId());
+      history.ordersByStatus.get(indexed).remove(position);
+      history.ordersByStatus.get(current).put(position, order);
+      shard.ordersByStatus.get(indexed).remove(order);
+      shard.ordersByStatus.get(current).put(order, sequence.incrementAndGet());
+      if (orderLog != null) {
+        orderLog.appendStatus(order.getId(), current);
+      }
+    }
+  }
+
+  // Walks a user's status index newest first, copying one chunk at a time under the shard lock, so
+  // a stream only pays for what it consumes and never holds the lock between elements.
+  private static class StatusOrders implements Iterator<Order> {
+    private final Shard shard;
+    private final String userId;
+    private final Order.Status status;
+    private final ArrayDeque<Order> chunk = new ArrayDeque<>(STREAM_CHUNK);
+    private int before = Integer.MAX_VALUE;
+
+    private StatusOrders(Shard shard, String userId, Order.Status status) {
+      this.shard = shard;
+      this.userId = userId;
+      this.status = status;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (chunk.isEmpty() && before > 0) {
+        readChunk();
+      }
+      return !chunk.isEmpty();
+    }
+
+    @Override
+    public Order next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return chunk.poll();
+    }
+
+    private void readChunk() {
+      shard.lock.lock();
+      try {
+        UserHistory history = shard.userHistories.get(userId);
+        int last = 0;
+        if (history != null) {
+          NavigableMap<Integer, Order> older =
+              history.ordersByStatus.get(status).headMap(before, false).descendingMap();
+          for (Map.Entry<Integer, Order> entry : older.entrySet()) {
+            if (chunk.size() == STREAM_CHUNK) {
+              break;
+            }
+            chunk.add(entry.getValue());
+            last = entry.getKey();
+          }
+        }
+        // Positions below the last one read are still to come; a short chunk was the last one.
+        before = chunk.size() == STREAM_CHUNK ? last : 0;
+      } finally {
+        shard.lock.unlock();
+      }
+    }
+  }
+
+  private static class Shard {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, UserHistory> userHistories = new HashMap<>();
+    private final Map<Order.Status, Map<Order, Long>> ordersByStatus =
+        new EnumMap<>(Order.Status.class);
+
+    private Shard() {
+      for (Order.Status status : Order.Status.values()) {
+        ordersByStatus.put(status, new LinkedHashMap<>());
+      }
+    }
+  }
+
+  private static class Slice implements Comparable<Slice> {
+    private final List<Map.Entry<Order, Long>> entries;
+    private int next;
+
+    private Slice(List<Map.Entry<Order, Long>> entries) {
+      this.entries = entries;
+    }
+
+    @Override
+    public int compareTo(Slice other) {
+      return Long.compare(entries.get(next).getValue(), other.entries.get(other.next).getValue());
+    }
+  }
+
+  private static class UserHistory {
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final OrderTimeline orders = new OrderTimeline();
+    private final Map<Order.Status, NavigableMap<Integer, Order>> ordersByStatus =
+        newStatusIndex();
+    private final Map<Currency, Long> spending = new HashMap<>();
   }
 }
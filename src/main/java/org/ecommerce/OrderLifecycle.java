@@ -0,0 +1,214 @@
+package org.ecommerce;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class OrderLifecycle {
+  private static final int DEFAULT_STREAM_CAPACITY = 65_536;
+  private static final long POLL_INTERVAL_MILLIS = 50;
+
+  private final ExecutorService[] shards;
+  private final BlockingQueue<Transition> stream;
+  private final ExecutorService streamConsumer;
+  private final CopyOnWriteArrayList<OrderStatusListener> subscribers;
+  private final LongAdder failedDeliveries;
+  // Callers hold the read side from their running check until the transition is submitted, so
+  // shutdown cannot slip in between and turn an accepted transition into a rejected execution.
+  private final Lock submitLock;
+  private final Lock shutdownLock;
+  private volatile boolean running;
+
+  public OrderLifecycle() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public OrderLifecycle(int shardCount) {
+    this(shardCount, DEFAULT_STREAM_CAPACITY);
+  }
+
+  public OrderLifecycle(int shardCount, int streamCapacity) {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("Shard count must be positive");
+    }
+    if (streamCapacity <= 0) {
+      throw new IllegalArgumentException("Stream capacity must be positive");
+    }
+
+    this.shards = new ExecutorService[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] =
+          Executors.newSingleThreadExecutor(
+              Thread.ofVirtual().name("order-lifecycle-shard-" + i).factory());
+    }
+    this.stream = new ArrayBlockingQueue<>(streamCapacity);
+    this.subscribers = new CopyOnWriteArrayList<>();
+    this.failedDeliveries = new LongAdder();
+    ReentrantReadWriteLock lifecycle = new ReentrantReadWriteLock();
+    this.submitLock = lifecycle.readLock();
+    this.shutdownLock = lifecycle.writeLock();
+    this.running = true;
+    this.streamConsumer =
+        Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("order-lifecycle-stream").factory());
+    this.streamConsumer.execute(this::consumeLoop);
+  }
+
+  public void subscribe(OrderStatusListener subscriber) {
+    if (subscriber == null) {
+      throw new IllegalArgumentException("Subscriber cannot be null");
+    }
+
+    subscribers.addIfAbsent(subscriber);
+  }
+
+  public void unsubscribe(OrderStatusListener subscriber) {
+    if (subscriber == null) {
+      throw new IllegalArgumentException("Subscriber cannot be null");
+    }
+
+    subscribers.remove(subscriber);
+  }
+
+  public CompletableFuture<Order.Status> transition(Order order, Order.Status status) {
+    if (order == null) {
+      throw new IllegalArgumentException("Order cannot be null");
+    }
+    if (status == null) {
+      throw new IllegalArgumentException("Status cannot be null");
+    }
+    CompletableFuture<Order.Status> result = new CompletableFuture<>();
+    submitLock.lock();
+    try {
+      if (!running) {
+        throw new IllegalStateException("Order lifecycle has been shut down");
+      }
+      shardOf(order).execute(() -> apply(order, status, result));
+    } finally {
+      submitLock.unlock();
+    }
+    return result;
+  }
+
+  public long getFailedDeliveryCount() {
+    return failedDeliveries.sum();
+  }
+
+  public int getPendingEventCount() {
+    return stream.size();
+  }
+
+  public void shutdown() throws InterruptedException {
+    shutdownLock.lock();
+    try {
+      running = false;
+    } finally {
+      shutdownLock.unlock();
+    }
+    for (ExecutorService shard : shards) {
+      shard.shutdown();
+    }
+    for (ExecutorService shard : shards) {
+      shard.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+    streamConsumer.shutdown();
+    streamConsumer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+    // The shards have stopped, so whatever an interrupted consumer left behind is delivered here
+    // rather than lost.
+    Transition transition;
+    while ((transition = stream.poll()) != null) {
+      deliver(transition);
+    }
+  }
+
+  private ExecutorService shardOf(Order order) {
+    // Every transition of one order runs on the same shard thread, so one caller's transitions
+    // apply in the order they were submitted.
+    return shards[Math.floorMod(order.getId().hashCode(), shards.length)];
+  }
+
+  private void apply(Order order, Order.Status status, CompletableFuture<Order.Status> result) {
+    Order.Status previousStatus;
+    try {
+      // The order's own listeners, such as history indexes, are told under its transition lock,
+      // so they never see these transitions interleaved with ones made through setStatus.
+      previousStatus = order.transitionTo(status, failure -> failedDeliveries.increment());
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+      return;
+    }
+    if (previousStatus == status) {
+      result.complete(previousStatus);
+      return;
+    }
+
+    try {
+      stream.put(new Transition(order, previousStatus, status, result));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.completeExceptionally(e);
+    }
+  }
+
+  private void consumeLoop() {
+    while (running || !stream.isEmpty() || !shardsTerminated()) {
+      Transition transition;
+      try {
+        transition = stream.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (transition != null) {
+        deliver(transition);
+      }
+    }
+  }
+
+  private boolean shardsTerminated() {
+    for (ExecutorService shard : shards) {
+      if (!shard.isTerminated()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void deliver(Transition transition) {
+    Order order = transition.order;
+    for (OrderStatusListener subscriber : subscribers) {
+      try {
+        subscriber.onStatusTransition(order, transition.previousStatus, transition.newStatus);
+      } catch (RuntimeException e) {
+        failedDeliveries.increment();
+      }
+    }
+    transition.result.complete(transition.previousStatus);
+  }
+
+  private static class Transition {
+    private final Order order;
+    private final Order.Status previousStatus;
+    private final Order.Status newStatus;
+    private final CompletableFuture<Order.Status> result;
+
+    private Transition(
+        Order order,
+        Order.Status previousStatus,
+        Order.Status newStatus,
+        CompletableFuture<Order.Status> result) {
+      this.order = order;
+      this.previousStatus = previousStatus;
+      this.newStatus = newStatus;
+      this.result = result;
+    }
+  }
+}
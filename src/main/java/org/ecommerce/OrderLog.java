@@ -0,0 +1,366 @@
+package org.ecommerce;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+public class OrderLog implements AutoCloseable {
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private static final String SEGMENT_PREFIX = "orders-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final int HEADER_SIZE = 8;
+  private static final byte ORDER_RECORD = 1;
+  private static final byte STATUS_RECORD = 2;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final List<MappedByteBuffer> segments;
+  private final Map<String, Long> orderOffsets;
+  private final Map<String, Order.Status> latestStatuses;
+  private ByteBuffer scratch;
+  private int writePosition;
+  private boolean closed;
+
+  private OrderLog(Path directory, int segmentSize) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.segments = new CopyOnWriteArrayList<>();
+    this.orderOffsets = new ConcurrentHashMap<>();
+    this.latestStatuses = new ConcurrentHashMap<>();
+    this.scratch = ByteBuffer.allocate(1024);
+  }
+
+  public static OrderLog open(Path directory) throws IOException {
+    return open(directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  public static OrderLog open(Path directory, int segmentSize) throws IOException {
+    if (directory == null) {
+      throw new IllegalArgumentException("Log directory cannot be null");
+    }
+    if (segmentSize <= HEADER_SIZE) {
+      throw new IllegalArgumentException("Segment size is too small");
+    }
+
+    Files.createDirectories(directory);
+    OrderLog log = new OrderLog(directory, segmentSize);
+    log.recover();
+    return log;
+  }
+
+  public synchronized long append(Order order) {
+    if (order == null) {
+      throw new IllegalArgumentException("Order cannot be null");
+    }
+
+    long offset = write(encode(buffer -> encodeOrder(buffer, order)));
+    orderOffsets.put(order.getId(), offset);
+    latestStatuses.put(order.getId(), order.getStatus());
+    return offset;
+  }
+
+  public synchronized long appendStatus(String orderId, Order.Status status) {
+    if (orderId == null || orderId.trim().isEmpty()) {
+      throw new IllegalArgumentException("Order ID cannot be null or empty");
+    }
+    if (status == null) {
+      throw new IllegalArgumentException("Status cannot be null");
+    }
+
+    long offset =
+        write(
+            encode(
+                buffer -> {
+                  buffer.put(STATUS_RECORD);
+                  putString(buffer, orderId);
+                  buffer.put((byte) status.ordinal());
+                }));
+    latestStatuses.put(orderId, status);
+    return offset;
+  }
+
+  public Order read(String orderId) {
+    if (orderId == null || orderId.trim().isEmpty()) {
+      throw new IllegalArgumentException("Order ID cannot be null or empty");
+    }
+
+    Long offset = orderOffsets.get(orderId);
+    if (offset == null) {
+      return null;
+    }
+
+    return decodeOrder(payloadAt(offset), new HashMap<>(), new HashMap<>());
+  }
+
+  public List<Order> replay() {
+    Map<String, Order> orders = new LinkedHashMap<>();
+    Map<String, User> users = new HashMap<>();
+    Map<String, Product> products = new HashMap<>();
+
+    for (Map.Entry<String, Long> entry : offsetsInLogOrder().entrySet()) {
+      Order order = decodeOrder(payloadAt(entry.getValue()), users, products);
+      orders.put(order.getId(), order);
+    }
+    return new ArrayList<>(orders.values());
+  }
+
+  public int getOrderCount() {
+    return orderOffsets.size();
+  }
+
+  public int getSegmentCount() {
+    return segments.size();
+  }
+
+  public synchronized void flush() {
+    for (MappedByteBuffer segment : segments) {
+      segment.force();
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      flush();
+      closed = true;
+    }
+  }
+
+  private void recover() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (var stream = Files.list(directory)) {
+      stream
+          .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+          .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .sorted()
+          .forEach(files::add);
+    }
+
+    for (int i = 0; i < files.size(); i++) {
+      if (!files.get(i).equals(segmentPath(i))) {
+        throw new IOException("Missing log segment " + segmentPath(i));
+      }
+      segments.add(map(files.get(i)));
+    }
+    if (segments.isEmpty()) {
+      segments.add(map(segmentPath(0)));
+    }
+
+    for (int i = 0; i < segments.size(); i++) {
+      int position = scan(i);
+      if (i == segments.size() - 1) {
+        writePosition = position;
+      }
+    }
+  }
+
+  private int scan(int segmentIndex) {
+    MappedByteBuffer segment = segments.get(segmentIndex);
+    CRC32 crc = new CRC32();
+    int position = 0;
+    while (position + HEADER_SIZE <= segmentSize) {
+      int length = segment.getInt(position);
+      if (length <= 0 || position + HEADER_SIZE + length > segmentSize) {
+        break;
+      }
+
+      ByteBuffer payload = segment.slice(position + HEADER_SIZE, length);
+      crc.reset();
+      crc.update(payload.duplicate());
+      if ((int) crc.getValue() != segment.getInt(position + 4)) {
+        // A torn tail from a crash: everything after the last intact record is discarded.
+        segment.put(position, new byte[segmentSize - position]);
+        break;
+      }
+
+      long offset = offsetOf(segmentIndex, position);
+      byte type = payload.get();
+      if (type == ORDER_RECORD) {
+        String orderId = getString(payload);
+        orderOffsets.put(orderId, offset);
+        latestStatuses.remove(orderId);
+      } else if (type == STATUS_RECORD) {
+        String orderId = getString(payload);
+        latestStatuses.put(orderId, Order.Status.values()[payload.get()]);
+      }
+      position += HEADER_SIZE + length;
+    }
+    return position;
+  }
+
+  private Map<String, Long> offsetsInLogOrder() {
+    Map<String, Long> ordered = new LinkedHashMap<>();
+    orderOffsets.entrySet().stream()
+        .sorted(Map.Entry.comparingByValue())
+        .forEach(entry -> ordered.put(entry.getKey(), entry.getValue()));
+    return ordered;
+  }
+
+  private long write(ByteBuffer record) {
+    if (closed) {
+      throw new IllegalStateException("Order log has been closed");
+    }
+
+    record.flip();
+    int length = record.remaining();
+    if (HEADER_SIZE + length > segmentSize) {
+      throw new IllegalArgumentException("Record does not fit in a log segment");
+    }
+    if (writePosition + HEADER_SIZE + length > segmentSize) {
+      try {
+        segments.add(map(segmentPath(segments.size())));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      writePosition = 0;
+    }
+
+    MappedByteBuffer segment = segments.get(segments.size() - 1);
+    CRC32 crc = new CRC32();
+    crc.update(record.duplicate());
+    segment.put(writePosition + HEADER_SIZE, record, 0, length);
+    segment.putInt(writePosition + 4, (int) crc.getValue());
+    // The length is written last so a reader never sees a partially written record as complete.
+    segment.putInt(writePosition, length);
+
+    long offset = offsetOf(segments.size() - 1, writePosition);
+    writePosition += HEADER_SIZE + length;
+    return offset;
+  }
+
+  private ByteBuffer payloadAt(long offset) {
+    MappedByteBuffer segment = segments.get((int) (offset >>> 32));
+    int position = (int) offset;
+    return segment.slice(position + HEADER_SIZE, segment.getInt(position));
+  }
+
+  private ByteBuffer encode(Consumer<ByteBuffer> encoder) {
+    while (true) {
+      try {
+        scratch.clear();
+        encoder.accept(scratch);
+        return scratch;
+      } catch (BufferOverflowException e) {
+        scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+      }
+    }
+  }
+
+  private static void encodeOrder(ByteBuffer buffer, Order order) {
+    buffer.put(ORDER_RECORD);
+    putString(buffer, order.getId());
+    User user = order.getUser();
+    putString(buffer, user.getId());
+    putString(buffer, user.getUsername());
+    putString(buffer, user.getEmail());
+    buffer.put((byte) user.getType().ordinal());
+    buffer.put((byte) order.getStatus().ordinal());
+    putMoney(buffer, order.getTotalAmount());
+    buffer.putLong(order.getCreatedAt().getEpochSecond());
+    buffer.putInt(order.getCreatedAt().getNano());
+    buffer.putInt(order.getItems().size());
+    for (Map.Entry<Product, Integer> entry : order.getItems().entrySet()) {
+      Product product = entry.getKey();
+      putString(buffer, product.getId());
+      putString(buffer, product.getName());
+      // A category is never empty, so the empty string stands for none.
+      putString(buffer, product.getCategory() == null ? "" : product.getCategory());
+      putMoney(buffer, product.getPriceAmount());
+      buffer.putInt(entry.getValue());
+    }
+  }
+
+  private Order decodeOrder(
+      ByteBuffer payload, Map<String, User> users, Map<String, Product> products) {
+    // Skips the record type, which is always ORDER_RECORD here.
+    payload.get();
+    String orderId = getString(payload);
+    String userId = getString(payload);
+    String username = getString(payload);
+    String email = getString(payload);
+    User.Type type = User.Type.values()[payload.get()];
+    User user = users.computeIfAbsent(userId, id -> new User(id, username, email, type));
+    Order.Status status = Order.Status.values()[payload.get()];
+    Money total = getMoney(payload);
+    Instant createdAt = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+
+    int itemCount = payload.getInt();
+    Map<Product, Integer> items = new HashMap<>();
+    for (int i = 0; i < itemCount; i++) {
+      String productId = getString(payload);
+      String name = getString(payload);
+      String category = getString(payload);
+      Money price = getMoney(payload);
+      Product product =
+          products.computeIfAbsent(
+              productId,
+              id -> new Product(id, name, price, category.isEmpty() ? null : category));
+      items.put(product, payload.getInt());
+    }
+    return new Order(
+        orderId, user, items, total, latestStatuses.getOrDefault(orderId, status), createdAt);
+  }
+
+  private static void putMoney(ByteBuffer buffer, Money amount) {
+    putString(buffer, amount.getCurrency().getCurrencyCode());
+    buffer.putLong(amount.getMinorUnits());
+  }
+
+  private static Money getMoney(ByteBuffer buffer) {
+    Currency currency = Currency.getInstance(getString(buffer));
+    return Money.ofMinorUnits(buffer.getLong(), currency);
+  }
+
+  private static void putString(ByteBuffer buffer, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 0xFFFF) {
+      throw new IllegalArgumentException("String is too long to be logged");
+    }
+    buffer.putShort((short) bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private MappedByteBuffer map(Path path) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+  }
+
+  private Path segmentPath(int index) {
+    return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+  }
+
+  private static long offsetOf(int segmentIndex, int position) {
+    return ((long) segmentIndex << 32) | position;
+  }
+}
@@ -1,6 +1,14 @@
 package org.ecommerce;
 
+import java.util.List;
+
 public interface OrderObserver {
 
   void onOrderStatusChange(Order order, Order.Status newStatus);
+
+  default void onOrderStatusChanges(List<OrderStatusEvent> events) {
+    for (OrderStatusEvent event : events) {
+      onOrderStatusChange(event.getOrder(), event.getNewStatus());
+    }
+  }
 }
@@ -0,0 +1,30 @@
+package org.ecommerce;
+
+import java.util.Collections;
+import java.util.List;
+
+public class OrderPage {
+  private final List<Order> orders;
+  private final String nextCursor;
+
+  public OrderPage(List<Order> orders, String nextCursor) {
+    if (orders == null) {
+      throw new IllegalArgumentException("Orders cannot be null");
+    }
+
+    this.orders = Collections.unmodifiableList(orders);
+    this.nextCursor = nextCursor;
+  }
+
+  public List<Order> getOrders() {
+    return orders;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public boolean hasNext() {
+    return nextCursor != null;
+  }
+}
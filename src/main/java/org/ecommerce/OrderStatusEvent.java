@@ -0,0 +1,41 @@
+package org.ecommerce;
+
+import java.time.Instant;
+
+public class OrderStatusEvent {
+  private final Order order;
+  private final Order.Status newStatus;
+  private final Instant occurredAt;
+
+  public OrderStatusEvent(Order order, Order.Status newStatus) {
+    this(order, newStatus, Instant.now());
+  }
+
+  public OrderStatusEvent(Order order, Order.Status newStatus, Instant occurredAt) {
+    if (order == null) {
+      throw new IllegalArgumentException("Order cannot be null");
+    }
+    if (newStatus == null) {
+      throw new IllegalArgumentException("New status cannot be null");
+    }
+    if (occurredAt == null) {
+      throw new IllegalArgumentException("Occurrence time cannot be null");
+    }
+
+    this.order = order;
+    this.newStatus = newStatus;
+    this.occurredAt = occurredAt;
+  }
+
+  public Order getOrder() {
+    return order;
+  }
+
+  public Order.Status getNewStatus() {
+    return newStatus;
+  }
+
+  public Instant getOccurredAt() {
+    return occurredAt;
+  }
+}
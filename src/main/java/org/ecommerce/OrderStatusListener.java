@@ -0,0 +1,6 @@
+package org.ecommerce;
+
+public interface OrderStatusListener {
+
+  void onStatusTransition(Order order, Order.Status previousStatus, Order.Status newStatus);
+}
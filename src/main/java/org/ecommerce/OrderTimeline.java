@@ -0,0 +1,137 @@
+package org.ecommerce;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+public class OrderTimeline {
+  private static final int INITIAL_CAPACITY = 8;
+
+  // Appended by one writer at a time; readers take the size before the array so any array they
+  // see holds at least that many published orders, and they never need the writer's lock.
+  private volatile Order[] orders;
+  private volatile int size;
+  private volatile boolean chronological;
+
+  public OrderTimeline() {
+    this.orders = new Order[INITIAL_CAPACITY];
+    this.chronological = true;
+  }
+
+  public void append(Order order) {
+    if (order == null) {
+      throw new IllegalArgumentException("Order cannot be null");
+    }
+
+    int count = size;
+    Order[] current = orders;
+    if (count == current.length) {
+      current = Arrays.copyOf(current, count * 2);
+      orders = current;
+    }
+    if (chronological
+        && (order.getCreatedAt() == null
+            || (count > 0 && !isNotBefore(order, current[count - 1])))) {
+      chronological = false;
+    }
+    current[count] = order;
+    size = count + 1;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public Order[] toArray() {
+    int count = size;
+    return Arrays.copyOf(orders, count);
+  }
+
+  public NewestFirst newestFirst(int before, Predicate<Order> filter) {
+    int count = size;
+    return new NewestFirst(orders, Math.min(before, count), 0, filter);
+  }
+
+  public NewestFirst newestFirst(Instant from, Instant until) {
+    int count = size;
+    Order[] snapshot = orders;
+    if (!chronological) {
+      return new NewestFirst(snapshot, count, 0, order -> isWithin(order, from, until));
+    }
+
+    // Orders arrived in creation order, so the range is a contiguous run found by binary search.
+    int before = firstAtOrAfter(snapshot, count, until);
+    int floor = firstAtOrAfter(snapshot, count, from);
+    return new NewestFirst(snapshot, before, floor, order -> true);
+  }
+
+  private static int firstAtOrAfter(Order[] snapshot, int count, Instant instant) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (snapshot[middle].getCreatedAt().isBefore(instant)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static boolean isNotBefore(Order order, Order previous) {
+    Instant createdAt = order.getCreatedAt();
+    Instant previousCreatedAt = previous.getCreatedAt();
+    return createdAt != null
+        && previousCreatedAt != null
+        && !createdAt.isBefore(previousCreatedAt);
+  }
+
+  private static boolean isWithin(Order order, Instant from, Instant until) {
+    Instant createdAt = order.getCreatedAt();
+    return createdAt != null && !createdAt.isBefore(from) && createdAt.isBefore(until);
+  }
+
+  public static class NewestFirst implements Iterator<Order> {
+    private final Order[] snapshot;
+    private final int floor;
+    private final Predicate<Order> filter;
+    private int position;
+    private Order next;
+
+    private NewestFirst(Order[] snapshot, int before, int floor, Predicate<Order> filter) {
+      this.snapshot = snapshot;
+      this.floor = floor;
+      this.filter = filter;
+      this.position = before;
+    }
+
+    public int resumePoint() {
+      // A looked-ahead order has already been passed over, so resuming must include it again.
+      return next != null ? position + 1 : position;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && position > floor) {
+        Order candidate = snapshot[--position];
+        if (filter.test(candidate)) {
+          next = candidate;
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public Order next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Order order = next;
+      next = null;
+      return order;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package org.ecommerce;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PriceCache {
+  private static final int MAX_SEGMENTS_PER_TYPE = 16;
+  private static final int MIN_ENTRIES_PER_SEGMENT = 64;
+
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final LongAdder hits;
+  private final LongAdder misses;
+
+  public PriceCache(int entriesPerUserType) {
+    if (entriesPerUserType <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive");
+    }
+
+    int segmentsPerType = entriesPerUserType / MIN_ENTRIES_PER_SEGMENT;
+    segmentsPerType = Integer.highestOneBit(
+        Math.max(1, Math.min(MAX_SEGMENTS_PER_TYPE, segmentsPerType)));
+    int entriesPerSegment = Math.max(1, entriesPerUserType / segmentsPerType);
+
+    this.segments = new Segment[User.Type.values().length * segmentsPerType];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment(entriesPerSegment);
+    }
+    this.segmentMask = segmentsPerType - 1;
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+  }
+
+  public double get(Product product, User.Type userType, PricingTable table) {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    if (userType == null) {
+      throw new IllegalArgumentException("User type cannot be null");
+    }
+    if (table == null) {
+      throw new IllegalArgumentException("Pricing table cannot be null");
+    }
+
+    String productId = product.getId();
+    Segment segment = segmentOf(productId, userType);
+    // The version is read before the price, so a concurrent setPrice can only make the entry look
+    // older than it is and never lets a stale price pass validation.
+    long priceVersion = product.getPriceVersion();
+    Entry entry = segment.entries.get(productId);
+    if (entry != null
+        && entry.product == product
+        && entry.priceVersion == priceVersion
+        && entry.table == table) {
+      // A hit takes no lock and writes only the first time it marks the entry since the last sweep.
+      if (!entry.referenced) {
+        entry.referenced = true;
+      }
+      hits.increment();
+      return entry.price;
+    }
+
+    misses.increment();
+    double price = product.getPrice() * table.factor(product, userType);
+    synchronized (segment) {
+      segment.put(productId, new Entry(product, priceVersion, table, price));
+    }
+    return price;
+  }
+
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.entries.size();
+    }
+    return size;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  private Segment segmentOf(String productId, User.Type userType) {
+    int hash = productId.hashCode();
+    hash ^= hash >>> 16;
+    return segments[userType.ordinal() * (segmentMask + 1) + (hash & segmentMask)];
+  }
+
+  private static class Entry {
+    private final Product product;
+    private final long priceVersion;
+    private final PricingTable table;
+    private final double price;
+    private volatile boolean referenced;
+
+    private Entry(Product product, long priceVersion, PricingTable table, double price) {
+      this.product = product;
+      this.priceVersion = priceVersion;
+      this.table = table;
+      this.price = price;
+    }
+  }
+
+  // Recency is approximated with CLOCK: hits only set a reference bit, and the hand sweeping the
+  // slots on insert gives referenced entries a second chance, so reads never reorder anything.
+  private static class Segment {
+    private final Map<String, Entry> entries;
+    private final String[] slots;
+    private int used;
+    private int hand;
+
+    private Segment(int maximumSize) {
+      this.entries = new ConcurrentHashMap<>();
+      this.slots = new String[maximumSize];
+    }
+
+    private void put(String productId, Entry entry) {
+      if (entries.put(productId, entry) != null) {
+        return;
+      }
+      if (used < slots.length) {
+        slots[used++] = productId;
+        return;
+      }
+
+      // One full turn clears every bit, so concurrent hits cannot keep the hand going around.
+      Entry candidate = entries.get(slots[hand]);
+      for (int swept = 0; candidate.referenced && swept < slots.length; swept++) {
+        candidate.referenced = false;
+        hand = (hand + 1) % slots.length;
+        candidate = entries.get(slots[hand]);
+      }
+      entries.remove(slots[hand]);
+      slots[hand] = productId;
+      hand = (hand + 1) % slots.length;
+    }
+
+    private void clear() {
+      entries.clear();
+      Arrays.fill(slots, null);
+      used = 0;
+      hand = 0;
+    }
+  }
+}
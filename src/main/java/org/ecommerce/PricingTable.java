@@ -0,0 +1,237 @@
+package org.ecommerce;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PricingTable {
+  public enum StackingPolicy {
+    BEST_DISCOUNT,
+    COMBINE
+  }
+
+  // One factor column per user type plus a trailing column for users without a type.
+  private static final int COLUMNS = User.Type.values().length + 1;
+
+  private final List<DiscountRule> rules;
+  private final StackingPolicy stackingPolicy;
+  private final long expiresAtMillis;
+  private final double[] defaultFactors;
+  private final Map<String, double[]> productFactors;
+  private final Map<String, double[]> categoryFactors;
+  private final Map<String, Map<String, double[]>> productCategoryFactors;
+  private final Map<String, Double> productDiscounts;
+  private final CatalogIndex<double[]> catalogFactors;
+
+  private PricingTable(
+      List<DiscountRule> rules,
+      StackingPolicy stackingPolicy,
+      long expiresAtMillis,
+      double[] defaultFactors,
+      Map<String, double[]> productFactors,
+      Map<String, double[]> categoryFactors,
+      Map<String, Map<String, double[]>> productCategoryFactors,
+      Map<String, Double> productDiscounts) {
+    this.rules = rules;
+    this.stackingPolicy = stackingPolicy;
+    this.expiresAtMillis = expiresAtMillis;
+    this.defaultFactors = defaultFactors;
+    this.productFactors = productFactors;
+    this.categoryFactors = categoryFactors;
+    this.productCategoryFactors = productCategoryFactors;
+    this.productDiscounts = productDiscounts;
+    this.catalogFactors = new CatalogIndex<>();
+  }
+
+  public static PricingTable compile(
+      List<DiscountRule> rules, StackingPolicy stackingPolicy, Instant now) {
+    if (rules == null) {
+      throw new IllegalArgumentException("Rules cannot be null");
+    }
+    if (stackingPolicy == null) {
+      throw new IllegalArgumentException("Stacking policy cannot be null");
+    }
+    if (now == null) {
+      throw new IllegalArgumentException("Compilation time cannot be null");
+    }
+
+    long expiresAt = Long.MAX_VALUE;
+    List<List<Double>> userDiscounts = new ArrayList<>();
+    for (int i = 0; i < COLUMNS; i++) {
+      userDiscounts.add(new ArrayList<>());
+    }
+    Map<String, List<Double>> productRules = new LinkedHashMap<>();
+    Map<String, List<Double>> categoryRules = new LinkedHashMap<>();
+
+    for (DiscountRule rule : rules) {
+      if (rule == null) {
+        throw new IllegalArgumentException("Rules cannot contain null");
+      }
+
+      expiresAt = Math.min(expiresAt, nextBoundary(rule, now));
+      if (!rule.isActiveAt(now)) {
+        continue;
+      }
+
+      switch (rule.getScope()) {
+        case USER_TYPE:
+          userDiscounts.get(rule.getUserType().ordinal()).add(rule.getPercentage());
+          break;
+        case PRODUCT:
+          productRules.computeIfAbsent(rule.getTarget(), id -> new ArrayList<>())
+              .add(rule.getPercentage());
+          break;
+        case CATEGORY:
+          categoryRules.computeIfAbsent(rule.getTarget(), c -> new ArrayList<>())
+              .add(rule.getPercentage());
+          break;
+      }
+    }
+
+    double[] defaultFactors = factors(stackingPolicy, userDiscounts);
+    Map<String, double[]> productFactors = new HashMap<>();
+    Map<String, Double> productDiscounts = new HashMap<>();
+    Map<String, Map<String, double[]>> productCategoryFactors = new HashMap<>();
+    for (Map.Entry<String, List<Double>> product : productRules.entrySet()) {
+      productFactors.put(
+          product.getKey(), factors(stackingPolicy, userDiscounts, product.getValue()));
+      productDiscounts.put(product.getKey(), percentage(stackingPolicy, product.getValue()));
+
+      Map<String, double[]> byCategory = new HashMap<>();
+      for (Map.Entry<String, List<Double>> category : categoryRules.entrySet()) {
+        byCategory.put(
+            category.getKey(),
+            factors(stackingPolicy, userDiscounts, product.getValue(), category.getValue()));
+      }
+      productCategoryFactors.put(product.getKey(), byCategory);
+    }
+    Map<String, double[]> categoryFactors = new HashMap<>();
+    for (Map.Entry<String, List<Double>> category : categoryRules.entrySet()) {
+      categoryFactors.put(
+          category.getKey(), factors(stackingPolicy, userDiscounts, category.getValue()));
+    }
+
+    return new PricingTable(
+        Collections.unmodifiableList(new ArrayList<>(rules)),
+        stackingPolicy,
+        expiresAt,
+        defaultFactors,
+        productFactors,
+        categoryFactors,
+        productCategoryFactors,
+        productDiscounts);
+  }
+
+  public double factor(Product product, User.Type userType) {
+    int column = userType == null ? COLUMNS - 1 : userType.ordinal();
+    // A product's ID and category never change, so its resolved column set is memoized by catalog
+    // ID for the lifetime of this table and later lookups skip hashing the strings.
+    double[] factors = catalogFactors.get(product);
+    if (factors == null) {
+      factors = resolve(product);
+      catalogFactors.put(product, factors);
+    }
+    return factors[column];
+  }
+
+  private double[] resolve(Product product) {
+    String category = product.getCategory();
+    double[] factors = productFactors.get(product.getId());
+
+    if (category != null && !categoryFactors.isEmpty()) {
+      double[] combined =
+          factors == null
+              ? categoryFactors.get(category)
+              : productCategoryFactors.get(product.getId()).get(category);
+      if (combined != null) {
+        return combined;
+      }
+    }
+    return factors == null ? defaultFactors : factors;
+  }
+
+  public void factors(Product[] products, User.Type userType, double[] out) {
+    int column = userType == null ? COLUMNS - 1 : userType.ordinal();
+    if (productFactors.isEmpty() && categoryFactors.isEmpty()) {
+      Arrays.fill(out, 0, products.length, defaultFactors[column]);
+      return;
+    }
+
+    for (int i = 0; i < products.length; i++) {
+      out[i] = factor(products[i], userType);
+    }
+  }
+
+  public double getProductDiscount(String productId) {
+    return productDiscounts.getOrDefault(productId, 0.0);
+  }
+
+  public boolean hasProductDiscount(String productId) {
+    return productDiscounts.containsKey(productId);
+  }
+
+  public List<DiscountRule> getRules() {
+    return rules;
+  }
+
+  public StackingPolicy getStackingPolicy() {
+    return stackingPolicy;
+  }
+
+  public boolean isExpiredAt(long epochMillis) {
+    return epochMillis >= expiresAtMillis;
+  }
+
+  private static long nextBoundary(DiscountRule rule, Instant now) {
+    long boundary = Long.MAX_VALUE;
+    if (rule.getValidFrom() != null && rule.getValidFrom().isAfter(now)) {
+      boundary = rule.getValidFrom().toEpochMilli();
+    }
+    if (rule.getValidUntil() != null && rule.getValidUntil().isAfter(now)) {
+      boundary = Math.min(boundary, rule.getValidUntil().toEpochMilli());
+    }
+    return boundary;
+  }
+
+  @SafeVarargs
+  private static double[] factors(
+      StackingPolicy stackingPolicy, List<List<Double>> userDiscounts, List<Double>... extra) {
+    double[] factors = new double[COLUMNS];
+    for (int column = 0; column < COLUMNS; column++) {
+      List<Double> discounts = new ArrayList<>(userDiscounts.get(column));
+      for (List<Double> discountList : extra) {
+        discounts.addAll(discountList);
+      }
+      factors[column] = stack(stackingPolicy, discounts);
+    }
+    return factors;
+  }
+
+  private static double percentage(StackingPolicy stackingPolicy, List<Double> discounts) {
+    if (discounts.size() == 1) {
+      return discounts.get(0);
+    }
+    return (1 - stack(stackingPolicy, discounts)) * 100.0;
+  }
+
+  private static double stack(StackingPolicy stackingPolicy, List<Double> discounts) {
+    if (stackingPolicy == StackingPolicy.BEST_DISCOUNT) {
+      double best = 0.0;
+      for (double discount : discounts) {
+        best = Math.max(best, discount);
+      }
+      return 1 - (best / 100.0);
+    }
+
+    double factor = 1.0;
+    for (double discount : discounts) {
+      factor *= 1 - (discount / 100.0);
+    }
+    return factor;
+  }
+}
@@ -1,24 +1,47 @@
 package org.ecommerce;
 
+import java.util.Currency;
+
 public class Product {
   private String id;
   private String name;
-  private double price;
+  private long priceMinorUnits;
+  private Currency currency;
+  private String category;
+  private volatile long priceVersion;
+  private ProductCatalog catalog;
+  private volatile int catalogId;
 
   public Product(String id, String name, double price) {
+    this(id, name, price, null);
+  }
+
+  public Product(String id, String name, double price, String category) {
+    this(id, name, moneyOf(price, Money.DEFAULT_CURRENCY), category);
+  }
+
+  public Product(String id, String name, Money price, String category) {
     if (id == null || id.trim().isEmpty()) {
       throw new IllegalArgumentException("Product ID cannot be null or empty");
     }
     if (name == null || name.trim().isEmpty()) {
       throw new IllegalArgumentException("Product name cannot be null or empty");
     }
-    if (price < 0) {
+    if (price == null) {
+      throw new IllegalArgumentException("Product price cannot be null");
+    }
+    if (price.isNegative()) {
       throw new IllegalArgumentException("Product price cannot be negative");
     }
+    if (category != null && category.trim().isEmpty()) {
+      throw new IllegalArgumentException("Product category cannot be empty");
+    }
 
     this.id = id;
     this.name = name;
-    this.price = price;
+    this.priceMinorUnits = price.getMinorUnits();
+    this.currency = price.getCurrency();
+    this.category = category;
   }
 
   public String getId() {
@@ -30,13 +53,65 @@ public class Product {
   }
 
   public double getPrice() {
-    return price;
+    return Money.toDouble(priceMinorUnits, currency);
+  }
+
+  public Money getPriceAmount() {
+    return Money.ofMinorUnits(priceMinorUnits, currency);
+  }
+
+  public long getPriceMinorUnits() {
+    return priceMinorUnits;
+  }
+
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  public String getCategory() {
+    return category;
+  }
+
+  public long getPriceVersion() {
+    return priceVersion;
+  }
+
+  public int getCatalogId() {
+    return catalogId;
+  }
+
+  ProductCatalog getCatalog() {
+    return catalog;
+  }
+
+  void assignCatalogId(ProductCatalog catalog, int catalogId) {
+    // The catalog is written before the volatile ID, so a reader that sees the ID sees it too.
+    this.catalog = catalog;
+    this.catalogId = catalogId;
   }
 
   public void setPrice(double price) {
+    setPrice(moneyOf(price, currency));
+  }
+
+  public void setPrice(Money price) {
+    if (price == null) {
+      throw new IllegalArgumentException("Product price cannot be null");
+    }
+    if (price.isNegative()) {
+      throw new IllegalArgumentException("Product price cannot be negative");
+    }
+    if (!price.getCurrency().equals(currency)) {
+      throw new IllegalArgumentException("Price currency must match product currency");
+    }
+    this.priceMinorUnits = price.getMinorUnits();
+    priceVersion++;
+  }
+
+  private static Money moneyOf(double price, Currency currency) {
     if (price < 0) {
       throw new IllegalArgumentException("Product price cannot be negative");
     }
-    this.price = price;
+    return Money.of(price, currency);
   }
 }
@@ -0,0 +1,62 @@
+package org.ecommerce;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ProductCatalog {
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final Map<String, Product> productsById;
+  // Indexed by catalog ID; slot 0 stays empty so that 0 can mean "not registered".
+  private volatile Product[] productsByCatalogId;
+  private int size;
+
+  public ProductCatalog() {
+    this.productsById = new ConcurrentHashMap<>();
+    this.productsByCatalogId = new Product[INITIAL_CAPACITY];
+  }
+
+  public synchronized Product register(Product product) {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+
+    Product existing = productsById.get(product.getId());
+    if (existing != null) {
+      return existing;
+    }
+    if (product.getCatalogId() != 0) {
+      throw new IllegalArgumentException("Product is registered with another catalog");
+    }
+
+    int catalogId = size + 1;
+    Product[] current = productsByCatalogId;
+    if (catalogId == current.length) {
+      current = Arrays.copyOf(current, current.length * 2);
+    }
+    product.assignCatalogId(this, catalogId);
+    current[catalogId] = product;
+    productsByCatalogId = current;
+    productsById.put(product.getId(), product);
+    size = catalogId;
+    return product;
+  }
+
+  public Product get(String productId) {
+    if (productId == null) {
+      throw new IllegalArgumentException("Product ID cannot be null");
+    }
+
+    return productsById.get(productId);
+  }
+
+  public Product get(int catalogId) {
+    Product[] current = productsByCatalogId;
+    return catalogId > 0 && catalogId < current.length ? current[catalogId] : null;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+}
@@ -0,0 +1,82 @@
+package org.ecommerce;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class Reservation {
+  public enum State {
+    HELD,
+    COMMITTED,
+    RELEASED,
+    EXPIRED
+  }
+
+  private final long id;
+  private final Order order;
+  private final String[] productIds;
+  private final int[] slots;
+  private final int[] quantities;
+  private final long expiresAtMillis;
+  private final AtomicReference<State> state;
+
+  // Intrusive links into the timer wheel bucket that currently holds this reservation.
+  ReservationWheel.Bucket bucket;
+  Reservation previous;
+  Reservation next;
+
+  Reservation(
+      long id,
+      Order order,
+      String[] productIds,
+      int[] slots,
+      int[] quantities,
+      long expiresAtMillis) {
+    this.id = id;
+    this.order = order;
+    this.productIds = productIds;
+    this.slots = slots;
+    this.quantities = quantities;
+    this.expiresAtMillis = expiresAtMillis;
+    this.state = new AtomicReference<>(State.HELD);
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public Order getOrder() {
+    return order;
+  }
+
+  public Instant getExpiresAt() {
+    return Instant.ofEpochMilli(expiresAtMillis);
+  }
+
+  public State getState() {
+    return state.get();
+  }
+
+  public boolean isHeld() {
+    return state.get() == State.HELD;
+  }
+
+  long getExpiresAtMillis() {
+    return expiresAtMillis;
+  }
+
+  String[] getProductIds() {
+    return productIds;
+  }
+
+  int[] getSlots() {
+    return slots;
+  }
+
+  int[] getQuantities() {
+    return quantities;
+  }
+
+  boolean finish(State finalState) {
+    return state.compareAndSet(State.HELD, finalState);
+  }
+}
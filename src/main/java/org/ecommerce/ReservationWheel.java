@@ -0,0 +1,124 @@
+package org.ecommerce;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ReservationWheel {
+  private final long tickMillis;
+  private final Bucket[] buckets;
+  private final int mask;
+  private volatile long currentTick;
+
+  public ReservationWheel(long tickMillis, int wheelSize, long nowMillis) {
+    if (tickMillis <= 0) {
+      throw new IllegalArgumentException("Tick duration must be positive");
+    }
+    if (wheelSize <= 0) {
+      throw new IllegalArgumentException("Wheel size must be positive");
+    }
+
+    int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+    this.tickMillis = tickMillis;
+    this.buckets = new Bucket[size];
+    for (int i = 0; i < size; i++) {
+      buckets[i] = new Bucket();
+    }
+    this.mask = size - 1;
+    this.currentTick = nowMillis / tickMillis;
+  }
+
+  public void schedule(Reservation reservation) {
+    // Deadlines round up to a tick boundary so their bucket is never passed while still pending,
+    // and those inside an already processed tick go to the next one; a reservation linked while
+    // the reaper passes its bucket is picked up on the next rotation.
+    long deadlineTick = (reservation.getExpiresAtMillis() + tickMillis - 1) / tickMillis;
+    long tick = Math.max(deadlineTick, currentTick + 1);
+
+    Bucket bucket = buckets[(int) (tick & mask)];
+    synchronized (bucket) {
+      reservation.bucket = bucket;
+      reservation.previous = null;
+      reservation.next = bucket.head;
+      if (bucket.head != null) {
+        bucket.head.previous = reservation;
+      }
+      bucket.head = reservation;
+      bucket.size++;
+    }
+  }
+
+  public void cancel(Reservation reservation) {
+    Bucket bucket = reservation.bucket;
+    if (bucket == null) {
+      return;
+    }
+
+    synchronized (bucket) {
+      if (reservation.bucket == bucket) {
+        bucket.unlink(reservation);
+      }
+    }
+  }
+
+  public synchronized int advance(long nowMillis, Consumer<Reservation> onExpired) {
+    long targetTick = nowMillis / tickMillis;
+    if (targetTick <= currentTick) {
+      return 0;
+    }
+
+    // Each bucket holds deadlines of several rotations, so a long pause only needs one full turn.
+    long ticks = Math.min(targetTick - currentTick, buckets.length);
+    List<Reservation> expired = new ArrayList<>();
+    for (long tick = targetTick - ticks + 1; tick <= targetTick; tick++) {
+      Bucket bucket = buckets[(int) (tick & mask)];
+      synchronized (bucket) {
+        Reservation reservation = bucket.head;
+        while (reservation != null) {
+          Reservation next = reservation.next;
+          if (reservation.getExpiresAtMillis() <= nowMillis) {
+            bucket.unlink(reservation);
+            expired.add(reservation);
+          }
+          reservation = next;
+        }
+      }
+    }
+    currentTick = targetTick;
+
+    for (Reservation reservation : expired) {
+      onExpired.accept(reservation);
+    }
+    return expired.size();
+  }
+
+  public int size() {
+    int size = 0;
+    for (Bucket bucket : buckets) {
+      synchronized (bucket) {
+        size += bucket.size;
+      }
+    }
+    return size;
+  }
+
+  static class Bucket {
+    private Reservation head;
+    private int size;
+
+    private void unlink(Reservation reservation) {
+      if (reservation.previous == null) {
+        head = reservation.next;
+      } else {
+        reservation.previous.next = reservation.next;
+      }
+      if (reservation.next != null) {
+        reservation.next.previous = reservation.previous;
+      }
+      reservation.previous = null;
+      reservation.next = null;
+      reservation.bucket = null;
+      size--;
+    }
+  }
+}
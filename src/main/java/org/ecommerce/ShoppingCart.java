@@ -1,27 +1,48 @@
 package org.ecommerce;
 
-import java.util.HashMap;
+import java.util.Currency;
 import java.util.Map;
 
 public class ShoppingCart {
   private User user;
-  private Map<Product, Integer> items;
+  private LineItems items;
+  private final ProductCatalog catalog;
 
   public ShoppingCart(User user) {
+    this(user, Money.DEFAULT_CURRENCY);
+  }
+
+  public ShoppingCart(User user, Currency currency) {
+    this(user, currency, null);
+  }
+
+  public ShoppingCart(User user, ProductCatalog catalog) {
+    this(user, Money.DEFAULT_CURRENCY, requireCatalog(catalog));
+  }
+
+  private ShoppingCart(User user, Currency currency, ProductCatalog catalog) {
     if (user == null) {
       throw new IllegalArgumentException("User cannot be null");
     }
+    if (currency == null) {
+      throw new IllegalArgumentException("Currency cannot be null");
+    }
 
     this.user = user;
-    this.items = new HashMap<>();
+    this.items = new LineItems(currency);
+    this.catalog = catalog;
   }
 
   public User getUser() {
     return user;
   }
 
+  public Currency getCurrency() {
+    return items.getCurrency();
+  }
+
   public Map<Product, Integer> getItems() {
-    return items;
+    return items.asMap();
   }
 
   public void addProduct(Product product, int quantity) {
@@ -31,28 +52,41 @@ public class ShoppingCart {
     if (quantity <= 0) {
       throw new IllegalArgumentException("Quantity must be positive");
     }
+    if (product.getCurrency() != null && !product.getCurrency().equals(items.getCurrency())) {
+      throw new IllegalArgumentException("Product currency does not match cart currency");
+    }
 
-    items.put(product, items.getOrDefault(product, 0) + quantity);
+    // Lines are keyed by product identity, so duplicate instances of one product are folded into
+    // the catalog's canonical instance before they can open a second line.
+    items.add(catalog == null ? product : catalog.register(product), quantity);
   }
 
   public void removeProduct(Product product) {
     if (product == null) {
       throw new IllegalArgumentException("Product cannot be null");
     }
-    if (!items.containsKey(product)) {
+    Product canonical = catalog == null ? null : catalog.get(product.getId());
+    if (!items.remove(canonical == null ? product : canonical)) {
       throw new IllegalArgumentException("Product not found in cart");
     }
-
-    items.remove(product);
   }
 
   public double calculateTotal() {
-    return items.entrySet().stream()
-        .mapToDouble(entry -> entry.getKey().getPrice() * entry.getValue())
-        .sum();
+    return items.total();
+  }
+
+  public Money calculateTotalAmount() {
+    return Money.ofMinorUnits(items.totalMinorUnits(), items.getCurrency());
   }
 
   public void clear() {
     items.clear();
   }
+
+  private static ProductCatalog requireCatalog(ProductCatalog catalog) {
+    if (catalog == null) {
+      throw new IllegalArgumentException("Catalog cannot be null");
+    }
+    return catalog;
+  }
 }
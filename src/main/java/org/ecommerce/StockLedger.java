@@ -0,0 +1,130 @@
+package org.ecommerce;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class StockLedger {
+  private static final int CHUNK_SHIFT = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private final Map<String, Integer> slots;
+  private final CatalogIndex<Integer> catalogSlots;
+  private volatile AtomicIntegerArray[] chunks;
+  private int nextSlot;
+
+  public StockLedger() {
+    this.slots = new ConcurrentHashMap<>();
+    this.catalogSlots = new CatalogIndex<>();
+    this.chunks = new AtomicIntegerArray[0];
+  }
+
+  public int slotOf(String productId) {
+    if (productId == null) {
+      throw new IllegalArgumentException("Product ID cannot be null");
+    }
+
+    Integer slot = slots.get(productId);
+    return slot == null ? -1 : slot;
+  }
+
+  public int slotOf(Product product) {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+
+    Integer cached = catalogSlots.get(product);
+    if (cached != null) {
+      return cached;
+    }
+    int slot = slotOf(product.getId());
+    if (slot >= 0) {
+      catalogSlots.put(product, slot);
+    }
+    return slot;
+  }
+
+  public int slotFor(Product product) {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+
+    Integer cached = catalogSlots.get(product);
+    if (cached != null) {
+      return cached;
+    }
+    int slot = slotFor(product.getId());
+    catalogSlots.put(product, slot);
+    return slot;
+  }
+
+  public int slotFor(String productId) {
+    int slot = slotOf(productId);
+    if (slot >= 0) {
+      return slot;
+    }
+
+    synchronized (this) {
+      Integer existing = slots.get(productId);
+      if (existing != null) {
+        return existing;
+      }
+
+      slot = nextSlot++;
+      AtomicIntegerArray[] current = chunks;
+      if ((slot >>> CHUNK_SHIFT) >= current.length) {
+        AtomicIntegerArray[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = new AtomicIntegerArray(CHUNK_SIZE);
+        chunks = grown;
+      }
+      // Publish the slot only after its chunk is visible to readers.
+      slots.put(productId, slot);
+      return slot;
+    }
+  }
+
+  public int size() {
+    return slots.size();
+  }
+
+  public int get(int slot) {
+    return chunk(slot).get(slot & CHUNK_MASK);
+  }
+
+  public int add(int slot, int delta) {
+    return chunk(slot).getAndAdd(slot & CHUNK_MASK, delta);
+  }
+
+  public int set(int slot, int quantity) {
+    return chunk(slot).getAndSet(slot & CHUNK_MASK, quantity);
+  }
+
+  public boolean tryDecrement(int slot, int quantity) {
+    AtomicIntegerArray chunk = chunk(slot);
+    int index = slot & CHUNK_MASK;
+    while (true) {
+      int current = chunk.get(index);
+      if (current < quantity) {
+        return false;
+      }
+      if (chunk.compareAndSet(index, current, current - quantity)) {
+        return true;
+      }
+    }
+  }
+
+  private AtomicIntegerArray chunk(int slot) {
+    if (slot < 0) {
+      throw new IllegalArgumentException("Slot cannot be negative");
+    }
+
+    AtomicIntegerArray[] current = chunks;
+    int chunkIndex = slot >>> CHUNK_SHIFT;
+    if (chunkIndex >= current.length) {
+      throw new IllegalArgumentException("Slot has not been allocated");
+    }
+    return current[chunkIndex];
+  }
+}
@@ -0,0 +1,68 @@
+package org.ecommerce;
+
+import java.time.Instant;
+
+public class StockLevelEvent {
+  public enum Level {
+    IN_STOCK,
+    LOW_STOCK,
+    OUT_OF_STOCK
+  }
+
+  private final Product product;
+  private final Level previousLevel;
+  private final Level level;
+  private final int quantity;
+  private final Instant occurredAt;
+
+  public StockLevelEvent(
+      Product product, Level previousLevel, Level level, int quantity, Instant occurredAt) {
+    if (product == null) {
+      throw new IllegalArgumentException("Product cannot be null");
+    }
+    if (previousLevel == null || level == null) {
+      throw new IllegalArgumentException("Stock level cannot be null");
+    }
+    if (occurredAt == null) {
+      throw new IllegalArgumentException("Occurrence time cannot be null");
+    }
+
+    this.product = product;
+    this.previousLevel = previousLevel;
+    this.level = level;
+    this.quantity = quantity;
+    this.occurredAt = occurredAt;
+  }
+
+  public Product getProduct() {
+    return product;
+  }
+
+  public Level getPreviousLevel() {
+    return previousLevel;
+  }
+
+  public Level getLevel() {
+    return level;
+  }
+
+  public int getQuantity() {
+    return quantity;
+  }
+
+  public Instant getOccurredAt() {
+    return occurredAt;
+  }
+
+  public boolean isLowStock() {
+    return level == Level.LOW_STOCK;
+  }
+
+  public boolean isOutOfStock() {
+    return level == Level.OUT_OF_STOCK;
+  }
+
+  public boolean isBackInStock() {
+    return previousLevel == Level.OUT_OF_STOCK && level != Level.OUT_OF_STOCK;
+  }
+}
@@ -0,0 +1,6 @@
+package org.ecommerce;
+
+public interface StockLevelListener {
+
+  void onStockLevelChange(StockLevelEvent event);
+}
@@ -0,0 +1,88 @@
+package org.ecommerce;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+class StockLevelMonitor {
+  private final StockLedger stock;
+  private final Map<String, Product> products;
+  private final int lowStockThreshold;
+  // A stock change only compares its new level with the last published one; the pending set is
+  // touched once a watermark has been crossed, so a flash sale costs a few inserts per window.
+  private final Map<String, StockLevelEvent.Level> published;
+  private final Set<String> pending;
+
+  StockLevelMonitor(StockLedger stock, Map<String, Product> products, int lowStockThreshold) {
+    this.stock = stock;
+    this.products = products;
+    this.lowStockThreshold = lowStockThreshold;
+    this.published = new ConcurrentHashMap<>();
+    this.pending = ConcurrentHashMap.newKeySet();
+  }
+
+  void seed() {
+    for (Product product : products.values()) {
+      int slot = stock.slotOf(product);
+      if (slot >= 0) {
+        published.putIfAbsent(product.getId(), levelOf(stock.get(slot)));
+      }
+    }
+  }
+
+  void track(String productId, int slot) {
+    if (levelOf(stock.get(slot)) != published.get(productId)) {
+      pending.add(productId);
+    }
+  }
+
+  void forget(String productId) {
+    pending.remove(productId);
+    published.remove(productId);
+  }
+
+  List<StockLevelEvent> drain(Instant now) {
+    List<StockLevelEvent> events = new ArrayList<>();
+    for (Iterator<String> iterator = pending.iterator(); iterator.hasNext(); ) {
+      String productId = iterator.next();
+      iterator.remove();
+      Product product = products.get(productId);
+      int slot = product == null ? -1 : stock.slotOf(product);
+      if (slot < 0) {
+        published.remove(productId);
+        continue;
+      }
+
+      // Only the level at the end of the window counts, so any number of crossings in between
+      // collapse into at most one event, and a round trip back to the published level into none.
+      int quantity = stock.get(slot);
+      StockLevelEvent.Level level = levelOf(quantity);
+      StockLevelEvent.Level previous = published.put(productId, level);
+      // A product new to the monitor, or added back after being removed, had no stock to sell.
+      if (previous == null) {
+        previous = StockLevelEvent.Level.OUT_OF_STOCK;
+      }
+      if (previous != level) {
+        events.add(new StockLevelEvent(product, previous, level, quantity, now));
+      }
+      // A change racing with the put may have compared against the old level and been dropped.
+      if (levelOf(stock.get(slot)) != level) {
+        pending.add(productId);
+      }
+    }
+    return events;
+  }
+
+  private StockLevelEvent.Level levelOf(int quantity) {
+    if (quantity <= 0) {
+      return StockLevelEvent.Level.OUT_OF_STOCK;
+    }
+    return quantity <= lowStockThreshold
+        ? StockLevelEvent.Level.LOW_STOCK
+        : StockLevelEvent.Level.IN_STOCK;
+  }
+}
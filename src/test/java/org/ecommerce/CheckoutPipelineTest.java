@@ -0,0 +1,273 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CheckoutPipelineTest {
+
+  private InventoryService inventoryService;
+  private OrderHistoryService orderHistoryService;
+  private NotificationService notificationService;
+  private OrderObserver observer;
+  private MetricsRegistry registry;
+  private CheckoutPipeline pipeline;
+  private User user;
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    inventoryService = new InventoryService();
+    orderHistoryService = new OrderHistoryService();
+    notificationService = new NotificationService();
+    observer = Mockito.mock(OrderObserver.class);
+    notificationService.addObserver(observer);
+    registry = new MetricsRegistry();
+    pipeline =
+        new CheckoutPipeline(
+            inventoryService, orderHistoryService, notificationService, 8, registry);
+    user = new User("user1", "shopper", "shopper@example.com");
+    product = new Product("prod1", "Product", 10.0);
+    inventoryService.addProduct(product, 100);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    pipeline.shutdown();
+  }
+
+  private ShoppingCart cartOf(int quantity) {
+    ShoppingCart cart = new ShoppingCart(user);
+    cart.addProduct(product, quantity);
+    return cart;
+  }
+
+  @Test
+  void shouldRunCheckoutThroughEveryStage() throws Exception {
+    // Act
+    Order order = pipeline.checkout("order1", cartOf(2)).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    assertEquals("order1", order.getId());
+    assertEquals(Order.Status.PROCESSING, order.getStatus());
+    assertEquals(98, inventoryService.getQuantity(product));
+    assertEquals(List.of(order), orderHistoryService.getUserOrders(user));
+    verify(observer).onOrderStatusChange(order, Order.Status.PROCESSING);
+  }
+
+  @Test
+  void shouldCancelOrderWhenStockIsInsufficient() throws Exception {
+    // Act
+    Order order = pipeline.checkout("order1", cartOf(101)).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    assertEquals(Order.Status.CANCELLED, order.getStatus());
+    assertEquals(100, inventoryService.getQuantity(product));
+    assertEquals(List.of(order), orderHistoryService.getUserOrders(user));
+    verify(observer).onOrderStatusChange(order, Order.Status.CANCELLED);
+  }
+
+  @Test
+  void shouldFailCheckoutOfEmptyCartWithoutStoppingPipeline() throws Exception {
+    // Act
+    CompletableFuture<Order> failed = pipeline.checkout("order1", new ShoppingCart(user));
+    Order order = pipeline.checkout("order2", cartOf(1)).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    ExecutionException exception =
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+    assertEquals("Cannot create order from empty cart", exception.getCause().getMessage());
+    assertEquals(List.of(order), orderHistoryService.getUserOrders(user));
+  }
+
+  @Test
+  void shouldFailCheckoutWhoseStageThrowsErrorWithoutStoppingPipeline() throws Exception {
+    // Arrange
+    doThrow(new StackOverflowError())
+        .doNothing()
+        .when(observer)
+        .onOrderStatusChange(any(Order.class), any(Order.Status.class));
+
+    // Act
+    CompletableFuture<Order> failed = pipeline.checkout("order1", cartOf(1));
+    Order order = pipeline.checkout("order2", cartOf(1)).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    ExecutionException exception =
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(StackOverflowError.class, exception.getCause());
+    assertEquals("order2", order.getId());
+  }
+
+  @Test
+  void shouldCompleteMoreCheckoutsThanRingCapacity() throws Exception {
+    // Arrange
+    List<CompletableFuture<Order>> results = new ArrayList<>();
+
+    // Act
+    for (int i = 0; i < 50; i++) {
+      results.add(pipeline.checkout("order" + i, cartOf(1)));
+    }
+    CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new)).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    assertEquals(8, pipeline.getCapacity());
+    assertEquals(50, inventoryService.getQuantity(product));
+    assertEquals(50, orderHistoryService.getUserOrders(user).size());
+    verify(observer, times(50)).onOrderStatusChange(any(), eq(Order.Status.PROCESSING));
+  }
+
+  @Test
+  void shouldCompleteCheckoutsFromConcurrentCallers() throws Exception {
+    // Arrange
+    List<Thread> callers = new ArrayList<>();
+    List<CompletableFuture<Order>> results = new ArrayList<>();
+
+    // Act
+    for (int t = 0; t < 4; t++) {
+      int caller = t;
+      callers.add(
+          Thread.ofVirtual()
+              .start(
+                  () -> {
+                    for (int i = 0; i < 20; i++) {
+                      CompletableFuture<Order> result =
+                          pipeline.checkout("order" + caller + "-" + i, cartOf(1));
+                      synchronized (results) {
+                        results.add(result);
+                      }
+                    }
+                  }));
+    }
+    for (Thread caller : callers) {
+      caller.join();
+    }
+    CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new)).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    assertEquals(80, results.size());
+    assertEquals(20, inventoryService.getQuantity(product));
+    assertEquals(80, orderHistoryService.getUserOrders(user).size());
+  }
+
+  @Test
+  void shouldExposeStageLatencyAndDrainedQueueDepth() throws Exception {
+    // Act
+    pipeline.checkout("order1", cartOf(1)).get(5, TimeUnit.SECONDS);
+    pipeline.checkout("order2", cartOf(1)).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    for (CheckoutPipeline.Stage stage : CheckoutPipeline.Stage.values()) {
+      assertEquals(0, pipeline.getQueueDepth(stage));
+      assertEquals(2, pipeline.getStageLatency(stage).getCount());
+      assertEquals(2, registry.snapshot().getHistogram(stage.getMetricName()).getCount());
+    }
+  }
+
+  @Test
+  void shouldDrainAcceptedCheckoutsOnShutdown() throws Exception {
+    // Arrange
+    List<CompletableFuture<Order>> results = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      results.add(pipeline.checkout("order" + i, cartOf(1)));
+    }
+
+    // Act
+    pipeline.shutdown();
+
+    // Assert
+    for (CompletableFuture<Order> result : results) {
+      assertTrue(result.isDone());
+      assertFalse(result.isCompletedExceptionally());
+    }
+    assertEquals(80, inventoryService.getQuantity(product));
+  }
+
+  @Test
+  void shouldRejectCheckoutAfterShutdown() throws InterruptedException {
+    // Arrange
+    pipeline.shutdown();
+
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalStateException.class,
+            () -> {
+              pipeline.checkout("order1", cartOf(1));
+            });
+    assertEquals("Checkout pipeline has been shut down", exception.getMessage());
+  }
+
+  @Test
+  void shouldKeepRejectingCheckoutsBeyondCapacityAfterShutdown() throws InterruptedException {
+    // Arrange
+    pipeline.shutdown();
+
+    // Act & Assert
+    for (int i = 0; i < pipeline.getCapacity() * 3; i++) {
+      String orderId = "order" + i;
+      assertThrows(IllegalStateException.class, () -> pipeline.checkout(orderId, cartOf(1)));
+    }
+    assertEquals(0, pipeline.getQueueDepth(CheckoutPipeline.Stage.CREATE_ORDER));
+  }
+
+  @Test
+  void shouldThrowExceptionWhenOrderIdIsNull() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              pipeline.checkout(null, cartOf(1));
+            });
+    assertEquals("Order ID cannot be null or empty", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenCartIsNull() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              pipeline.checkout("order1", null);
+            });
+    assertEquals("Shopping cart cannot be null", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenCapacityIsNotPositive() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              new CheckoutPipeline(
+                  inventoryService, orderHistoryService, notificationService, 0, registry);
+            });
+    assertEquals("Capacity must be positive", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenStageIsNull() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              pipeline.getQueueDepth(null);
+            });
+    assertEquals("Stage cannot be null", exception.getMessage());
+  }
+}
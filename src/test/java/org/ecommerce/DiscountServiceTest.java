@@ -4,6 +4,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -93,4 +97,212 @@ public class DiscountServiceTest {
             });
     assertEquals("User cannot be null", exception2.getMessage());
   }
+
+  @Test
+  void shouldReportPromotionalProducts() {
+    // Arrange
+    discountService.addPromotionalProduct("prod1", 10.0);
+
+    // Act & Assert
+    assertTrue(discountService.isPromotional("prod1"));
+    assertEquals(10.0, discountService.getPromotionalDiscount("prod1"), 0.001);
+
+    discountService.removePromotionalProduct("prod1");
+    assertFalse(discountService.isPromotional("prod1"));
+    assertEquals(
+        95.0, discountService.calculateDiscountedPrice(mockProduct, mockRegularUser), 0.001);
+  }
+
+  @Test
+  void shouldApplyCategoryRules() {
+    // Arrange
+    when(mockProduct.getCategory()).thenReturn("electronics");
+    discountService.setRules(
+        List.of(
+            DiscountRule.forUserType(User.Type.PREMIUM, 15.0),
+            DiscountRule.forCategory("electronics", 20.0)));
+
+    // Act
+    double regularPrice = discountService.calculateDiscountedPrice(mockProduct, mockRegularUser);
+    double premiumPrice = discountService.calculateDiscountedPrice(mockProduct, mockPremiumUser);
+
+    // Assert
+    assertEquals(80.0, regularPrice, 0.001);
+    assertEquals(80.0, premiumPrice, 0.001);
+  }
+
+  @Test
+  void shouldCombineProductAndCategoryRules() {
+    // Arrange
+    when(mockProduct.getCategory()).thenReturn("electronics");
+    discountService.setRules(
+        List.of(
+            DiscountRule.forProduct("prod1", 10.0), DiscountRule.forCategory("electronics", 20.0)));
+    discountService.setStackingPolicy(PricingTable.StackingPolicy.COMBINE);
+
+    // Act
+    double price = discountService.calculateDiscountedPrice(mockProduct, mockRegularUser);
+
+    // Assert
+    assertEquals(72.0, price, 0.001);
+  }
+
+  @Test
+  void shouldApplyRulesOnlyWithinTheirTimeWindow() {
+    // Arrange
+    Instant start = Instant.parse("2026-11-27T00:00:00Z");
+    MutableClock clock = new MutableClock(start.minusSeconds(60));
+    DiscountService timedService = new DiscountService(clock);
+    timedService.setRules(
+        List.of(DiscountRule.forProduct("prod1", 50.0).during(start, start.plusSeconds(3600))));
+
+    // Act & Assert
+    assertEquals(100.0, timedService.calculateDiscountedPrice(mockProduct, mockRegularUser), 0.001);
+
+    clock.advanceTo(start);
+    assertEquals(50.0, timedService.calculateDiscountedPrice(mockProduct, mockRegularUser), 0.001);
+
+    clock.advanceTo(start.plusSeconds(3600));
+    assertEquals(100.0, timedService.calculateDiscountedPrice(mockProduct, mockRegularUser), 0.001);
+  }
+
+  @Test
+  void shouldRejectInvalidDiscountWindow() {
+    // Arrange
+    Instant now = Instant.parse("2026-11-27T00:00:00Z");
+
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              DiscountRule.forProduct("prod1", 10.0).during(now, now);
+            });
+
+    assertEquals("Discount window must end after it starts", exception.getMessage());
+  }
+
+  @Test
+  void shouldPriceProductsInBulk() {
+    // Arrange
+    Product promotional = Mockito.mock(Product.class);
+    when(promotional.getId()).thenReturn("prod2");
+    when(promotional.getPrice()).thenReturn(200.0);
+    discountService.addPromotionalProduct("prod2", 50.0);
+    double[] out = new double[3];
+
+    // Act
+    discountService.calculateDiscountedPrices(
+        new Product[] {mockProduct, promotional}, User.Type.PREMIUM, out);
+
+    // Assert
+    assertArrayEquals(new double[] {85.0, 100.0, 0.0}, out, 0.001);
+  }
+
+  @Test
+  void shouldMultiplyPrimitivePriceArrays() {
+    // Arrange
+    double[] prices = {10.0, 20.0, 30.0};
+    double[] factors = {0.5, 1.0, 0.9};
+    double[] out = new double[3];
+
+    // Act
+    DiscountService.calculateDiscountedPrices(prices, factors, out);
+
+    // Assert
+    assertArrayEquals(new double[] {5.0, 20.0, 27.0}, out, 0.001);
+  }
+
+  @Test
+  void shouldThrowExceptionWhenBulkOutputIsTooSmall() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              discountService.calculateDiscountedPrices(
+                  new Product[] {mockProduct}, User.Type.REGULAR, new double[0]);
+            });
+
+    assertEquals("Output buffer is too small", exception.getMessage());
+  }
+
+  @Test
+  void shouldInvalidateCachedPricesOnPriceAndPromotionChanges() {
+    // Arrange
+    DiscountService cachingService = new DiscountService(Clock.systemUTC(), 1024);
+    Product product = new Product("prod3", "Headphones", 100.0);
+    User user = new User("user3", "buyer", "buyer@example.com", User.Type.PREMIUM);
+    cachingService.calculateDiscountedPrice(product, user);
+
+    // Act
+    double cached = cachingService.calculateDiscountedPrice(product, user);
+    product.setPrice(200.0);
+    double repriced = cachingService.calculateDiscountedPrice(product, user);
+    cachingService.addPromotionalProduct("prod3", 50.0);
+    double promoted = cachingService.calculateDiscountedPrice(product, user);
+    user.setType(User.Type.REGULAR);
+    double downgraded = cachingService.calculateDiscountedPrice(product, user);
+
+    // Assert
+    assertEquals(85.0, cached, 0.001);
+    assertEquals(170.0, repriced, 0.001);
+    assertEquals(100.0, promoted, 0.001);
+    assertEquals(100.0, downgraded, 0.001);
+    assertEquals(1, cachingService.getPriceCache().getHitCount());
+  }
+
+  @Test
+  void shouldNotCachePricesByDefault() {
+    // Act & Assert
+    assertNull(discountService.getPriceCache());
+  }
+
+  @Test
+  void shouldCalculateDiscountedPriceInMinorUnits() {
+    // Arrange
+    Product product = new Product("prod3", "Cable", 9.99);
+
+    // Act
+    Money price = discountService.calculateDiscountedPriceAmount(product, mockPremiumUser);
+
+    // Assert
+    assertEquals(849L, price.getMinorUnits());
+  }
+
+  @Test
+  void shouldRecordPricingLatencyWhenMetricsAreEnabled() {
+    // Arrange
+    MetricsRegistry registry = new MetricsRegistry();
+    discountService.setMetricsRegistry(registry);
+
+    // Act
+    discountService.calculateDiscountedPrice(mockProduct, mockRegularUser);
+    discountService.calculateDiscountedPrice(mockProduct, mockPremiumUser);
+
+    // Assert
+    assertEquals(2, registry.snapshot().getHistogram("discount.price.latency").getCount());
+  }
+
+  @Test
+  void shouldPriceCataloguedProductsLikeUncataloguedOnes() {
+    // Arrange
+    ProductCatalog catalog = new ProductCatalog();
+    Product promoted = catalog.register(new Product("prod7", "Monitor", 200.0, "electronics"));
+    Product plain = catalog.register(new Product("prod8", "Cable", 10.0));
+    discountService.addPromotionalProduct("prod7", 20.0);
+
+    // Act
+    double first = discountService.calculateDiscountedPrice(promoted, mockRegularUser);
+    double second = discountService.calculateDiscountedPrice(promoted, mockRegularUser);
+    double plainPrice = discountService.calculateDiscountedPrice(plain, mockPremiumUser);
+    discountService.removePromotionalProduct("prod7");
+    double afterRemoval = discountService.calculateDiscountedPrice(promoted, mockRegularUser);
+
+    // Assert
+    assertEquals(160.0, first, 0.001);
+    assertEquals(160.0, second, 0.001);
+    assertEquals(8.5, plainPrice, 0.001);
+    assertEquals(190.0, afterRemoval, 0.001);
+  }
 }
@@ -0,0 +1,222 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryLogTest {
+
+  @TempDir Path logDirectory;
+
+  private Product laptop;
+  private Product phone;
+
+  @BeforeEach
+  void setUp() {
+    laptop = new Product("prod1", "Laptop", 999.99, "electronics");
+    phone = new Product("prod2", "Phone", 499.0);
+  }
+
+  @Test
+  void shouldReplayMutationsAfterReopening() throws Exception {
+    // Arrange
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      log.appendProductAdded(laptop, 10);
+      log.appendProductAdded(phone, 5);
+      log.appendStockTaken(new String[] {"prod1", "prod2"}, new int[] {3, 1}, 2);
+      log.appendStockRestored(new String[] {"prod1"}, new int[] {1}, 1);
+    }
+
+    // Act
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      Map<Product, Integer> state = log.replay();
+
+      // Assert
+      assertEquals(2, state.size());
+      Product recoveredLaptop = state.keySet().iterator().next();
+      assertEquals("prod1", recoveredLaptop.getId());
+      assertEquals("Laptop", recoveredLaptop.getName());
+      assertEquals(999.99, recoveredLaptop.getPrice(), 0.001);
+      assertEquals("electronics", recoveredLaptop.getCategory());
+      assertEquals(8, state.get(recoveredLaptop));
+      assertEquals(4, state.values().stream().skip(1).findFirst().orElseThrow());
+    }
+  }
+
+  @Test
+  void shouldDropRemovedProductsOnReplay() throws Exception {
+    // Arrange
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      log.appendProductAdded(laptop, 10);
+      log.appendProductAdded(phone, 5);
+      log.appendProductRemoved("prod1");
+    }
+
+    // Act
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      Map<Product, Integer> state = log.replay();
+
+      // Assert
+      assertEquals(1, state.size());
+      assertEquals("prod2", state.keySet().iterator().next().getId());
+    }
+  }
+
+  @Test
+  void shouldCoverManyAppendsWithOneSync() throws Exception {
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      // Arrange
+      log.appendProductAdded(laptop, 10);
+      log.appendProductAdded(phone, 5);
+      long last = log.appendProductRemoved("prod1");
+
+      // Act
+      log.sync(last);
+      log.sync(1);
+
+      // Assert
+      assertEquals(1, log.getSyncCount());
+      assertEquals(3, log.getDurableSequence());
+    }
+  }
+
+  @Test
+  void shouldRecoverFromSnapshotAndTail() throws Exception {
+    // Arrange
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      log.appendProductAdded(laptop, 10);
+      long generation = log.rotate();
+      log.writeSnapshot(generation, Map.of(laptop, 7));
+      log.appendProductAdded(phone, 5);
+    }
+
+    // Act
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      Map<Product, Integer> state = log.replay();
+
+      // Assert
+      assertEquals(1, log.getGeneration());
+      assertEquals(2, state.size());
+      assertEquals(7, state.values().iterator().next());
+      assertFalse(Files.exists(logDirectory.resolve("inventory-00000000.wal")));
+      assertTrue(Files.exists(logDirectory.resolve("inventory-00000001.snapshot")));
+    }
+  }
+
+  @Test
+  void shouldReleaseOpenHoldsOnReplay() throws Exception {
+    // Arrange
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      log.appendProductAdded(laptop, 10);
+      log.appendReserved(1, new String[] {"prod1"}, new int[] {2}, 1);
+      log.appendReserved(2, new String[] {"prod1"}, new int[] {3}, 1);
+      log.appendReservationCommitted(1);
+    }
+
+    // Act
+    Map<Product, Integer> afterCrash;
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      afterCrash = log.replay();
+      log.appendReserved(2, new String[] {"prod1"}, new int[] {1}, 1);
+      log.appendReservationCommitted(2);
+    }
+
+    // Assert
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      assertEquals(8, afterCrash.values().iterator().next());
+      assertEquals(7, log.replay().values().iterator().next());
+    }
+  }
+
+  @Test
+  void shouldKeepHeldStockAcrossSnapshot() throws Exception {
+    // Arrange
+    Reservation reservation =
+        new Reservation(
+            4,
+            null,
+            new String[] {"prod1", "prod2"},
+            new int[] {0, 1},
+            new int[] {3, 1},
+            Long.MAX_VALUE);
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      log.appendProductAdded(laptop, 10);
+      log.appendReserved(4, new String[] {"prod1", "prod2"}, new int[] {3, 1}, 2);
+      long generation = log.rotate();
+      log.writeSnapshot(generation, Map.of(laptop, 7), List.of(reservation));
+      log.appendReservationCommitted(4);
+    }
+
+    // Act
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      Map<Product, Integer> state = log.replay();
+
+      // Assert
+      assertEquals(1, state.size());
+      assertEquals(7, state.values().iterator().next());
+    }
+  }
+
+  @Test
+  void shouldDiscardTornTailRecord() throws Exception {
+    // Arrange
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      log.appendProductAdded(laptop, 10);
+      log.appendProductAdded(phone, 5);
+    }
+    Path file = logDirectory.resolve("inventory-00000000.wal");
+    try (RandomAccessFile wal = new RandomAccessFile(file.toFile(), "rw")) {
+      wal.setLength(wal.length() - 3);
+    }
+
+    // Act
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      log.appendStockTaken(new String[] {"prod1"}, new int[] {4}, 1);
+    }
+
+    // Assert
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      Map<Product, Integer> state = log.replay();
+      assertEquals(1, state.size());
+      assertEquals(6, state.values().iterator().next());
+    }
+  }
+
+  @Test
+  void shouldRejectAppendsAfterClose() throws Exception {
+    // Arrange
+    InventoryLog log = InventoryLog.open(logDirectory);
+    log.close();
+
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalStateException.class,
+            () -> {
+              log.appendProductRemoved("prod1");
+            });
+
+    assertEquals("Inventory log has been closed", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenDirectoryIsNull() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              InventoryLog.open(null);
+            });
+
+    assertEquals("Log directory cannot be null", exception.getMessage());
+  }
+}
@@ -2,10 +2,27 @@ package org.ecommerce;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -248,4 +265,766 @@ public class InventoryServiceTest {
 
     assertEquals("Order contains null product", exception.getMessage());
   }
+
+  @Test
+  void shouldNotOversellWhenOrdersAreProcessedConcurrently() throws Exception {
+    // Arrange
+    Product shared = new Product("shared", "Shared product", 10.0);
+    Product other = new Product("other", "Other product", 10.0);
+    inventoryService.addProduct(shared, 100);
+    inventoryService.addProduct(other, 1000);
+
+    User user = new User("user1", "shopper", "shopper@example.com");
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      ShoppingCart cart = new ShoppingCart(user);
+      cart.addProduct(shared, 1);
+      cart.addProduct(other, 1);
+      orders.add(new Order("order" + i, cart));
+    }
+
+    // Act
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<Boolean>> results = new ArrayList<>();
+    for (Order order : orders) {
+      results.add(executor.submit(() -> inventoryService.processOrder(order)));
+    }
+    int processed = 0;
+    for (Future<Boolean> result : results) {
+      if (result.get()) {
+        processed++;
+      }
+    }
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+
+    // Assert
+    assertEquals(100, processed);
+    assertEquals(0, inventoryService.getQuantity(shared));
+    assertEquals(900, inventoryService.getQuantity(other));
+  }
+
+  @Test
+  void shouldNotExposePartialDecrementOfFailingMultiLineOrder() throws Exception {
+    // Arrange
+    Product shared = new Product("shared", "Shared product", 10.0);
+    Product soldOut = new Product("soldOut", "Sold out product", 10.0);
+    inventoryService.addProduct(shared, 1);
+    inventoryService.addProduct(soldOut, 0);
+    Map<Product, Integer> sharedFirst = new LinkedHashMap<>();
+    sharedFirst.put(shared, 1);
+    sharedFirst.put(soldOut, 1);
+    // Stub-only mocks do not record the hundreds of thousands of calls made on them.
+    Order multiLine = mock(Order.class, withSettings().stubOnly());
+    when(multiLine.getItems()).thenReturn(sharedFirst);
+    Order singleLine = mock(Order.class, withSettings().stubOnly());
+    when(singleLine.getItems()).thenReturn(Map.of(shared, 1));
+    AtomicBoolean racing = new AtomicBoolean(true);
+    Thread failing =
+        new Thread(
+            () -> {
+              while (racing.get()) {
+                inventoryService.processOrder(multiLine);
+              }
+            });
+
+    // Act
+    failing.start();
+    int partialReads = 0;
+    int rejectedSingles = 0;
+    for (int i = 0; i < 20_000; i++) {
+      if (inventoryService.getQuantity(shared) != 1) {
+        partialReads++;
+      }
+      if (inventoryService.processOrder(singleLine)) {
+        inventoryService.addProduct(shared, 1);
+      } else {
+        rejectedSingles++;
+      }
+    }
+    racing.set(false);
+    failing.join();
+
+    // Assert
+    assertEquals(0, partialReads);
+    assertEquals(0, rejectedSingles);
+    assertEquals(1, inventoryService.getQuantity(shared));
+  }
+
+  @Test
+  void shouldThrowExceptionWhenLockStripesAreNotPositive() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              new InventoryService(0);
+            });
+
+    assertEquals("Lock stripes must be positive", exception.getMessage());
+  }
+
+  @Test
+  void shouldProcessWholeBatchWhenStockCoversAggregateDemand() {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 10);
+    inventoryService.addProduct(mockProduct2, 10);
+    Order first = mockOrderOf(Map.of(mockProduct1, 4, mockProduct2, 1));
+    Order second = mockOrderOf(Map.of(mockProduct1, 6));
+
+    // Act
+    boolean[] results = inventoryService.processOrders(List.of(first, second));
+
+    // Assert
+    assertArrayEquals(new boolean[] {true, true}, results);
+    assertEquals(0, inventoryService.getQuantity(mockProduct1));
+    assertEquals(9, inventoryService.getQuantity(mockProduct2));
+    verify(first).setStatus(Order.Status.PROCESSING);
+    verify(second).setStatus(Order.Status.PROCESSING);
+  }
+
+  @Test
+  void shouldAllocateShortStockInFifoOrder() {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 5);
+    Order first = mockOrderOf(Map.of(mockProduct1, 3));
+    Order second = mockOrderOf(Map.of(mockProduct1, 3));
+    Order third = mockOrderOf(Map.of(mockProduct1, 2));
+
+    // Act
+    boolean[] results = inventoryService.processOrders(List.of(first, second, third));
+
+    // Assert
+    assertArrayEquals(new boolean[] {true, false, true}, results);
+    assertEquals(0, inventoryService.getQuantity(mockProduct1));
+    verify(second, never()).setStatus(any(Order.Status.class));
+  }
+
+  @Test
+  void shouldAllocateShortStockByPriority() {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 3);
+    Order regular = mockOrderOf(Map.of(mockProduct1, 3));
+    Order premium = mockOrderOf(Map.of(mockProduct1, 3));
+    Comparator<Order> premiumFirst = Comparator.comparing(order -> order == premium ? 0 : 1);
+
+    // Act
+    boolean[] results = inventoryService.processOrders(List.of(regular, premium), premiumFirst);
+
+    // Assert
+    assertArrayEquals(new boolean[] {false, true}, results);
+    assertEquals(0, inventoryService.getQuantity(mockProduct1));
+  }
+
+  @Test
+  void shouldFailBatchOrdersWithUnknownProducts() {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 5);
+    Order known = mockOrderOf(Map.of(mockProduct1, 1));
+    Order unknown = mockOrderOf(Map.of(mockProduct1, 1, mockProduct2, 1));
+
+    // Act
+    boolean[] results = inventoryService.processOrders(List.of(known, unknown));
+
+    // Assert
+    assertArrayEquals(new boolean[] {true, false}, results);
+    assertEquals(4, inventoryService.getQuantity(mockProduct1));
+  }
+
+  @Test
+  void shouldThrowExceptionWhenProcessingNullBatch() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              inventoryService.processOrders(null);
+            });
+
+    assertEquals("Orders cannot be null", exception.getMessage());
+  }
+
+  @Test
+  void shouldHoldStockUntilReservationIsCommitted() {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 10);
+    Order order = mockOrderOf(Map.of(mockProduct1, 4));
+
+    // Act
+    Reservation reservation = inventoryService.reserve(order);
+    int heldQuantity = inventoryService.getQuantity(mockProduct1);
+    boolean committed = inventoryService.commit(reservation);
+
+    // Assert
+    assertNotNull(reservation);
+    assertEquals(6, heldQuantity);
+    assertTrue(committed);
+    assertEquals(Reservation.State.COMMITTED, reservation.getState());
+    assertEquals(6, inventoryService.getQuantity(mockProduct1));
+    assertEquals(0, inventoryService.getActiveReservationCount());
+    verify(order).setStatus(Order.Status.PROCESSING);
+  }
+
+  @Test
+  void shouldReturnStockWhenReservationIsReleased() {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 10);
+    inventoryService.addProduct(mockProduct2, 5);
+    Reservation reservation =
+        inventoryService.reserve(mockOrderOf(Map.of(mockProduct1, 4, mockProduct2, 5)));
+
+    // Act
+    boolean released = inventoryService.release(reservation);
+
+    // Assert
+    assertTrue(released);
+    assertFalse(inventoryService.release(reservation));
+    assertFalse(inventoryService.commit(reservation));
+    assertEquals(10, inventoryService.getQuantity(mockProduct1));
+    assertEquals(5, inventoryService.getQuantity(mockProduct2));
+  }
+
+  @Test
+  void shouldNotReserveWhenStockIsInsufficient() {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 2);
+
+    // Act
+    Reservation reservation = inventoryService.reserve(mockOrderOf(Map.of(mockProduct1, 3)));
+
+    // Assert
+    assertNull(reservation);
+    assertEquals(2, inventoryService.getQuantity(mockProduct1));
+  }
+
+  @Test
+  void shouldReclaimExpiredReservations() {
+    // Arrange
+    MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    InventoryService timedService = new InventoryService(16, clock);
+    timedService.addProduct(mockProduct1, 10);
+    Reservation shortHold =
+        timedService.reserve(mockOrderOf(Map.of(mockProduct1, 3)), Duration.ofSeconds(30));
+    Reservation longHold =
+        timedService.reserve(mockOrderOf(Map.of(mockProduct1, 2)), Duration.ofHours(1));
+
+    // Act
+    clock.advanceBy(Duration.ofMinutes(1));
+    int reclaimed = timedService.reclaimExpiredReservations();
+
+    // Assert
+    assertEquals(1, reclaimed);
+    assertEquals(Reservation.State.EXPIRED, shortHold.getState());
+    assertTrue(longHold.isHeld());
+    assertEquals(8, timedService.getQuantity(mockProduct1));
+    assertEquals(1, timedService.getActiveReservationCount());
+  }
+
+  @Test
+  void shouldRejectCommitAfterDeadlineEvenBeforeReaping() {
+    // Arrange
+    MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+    InventoryService timedService = new InventoryService(16, clock);
+    timedService.addProduct(mockProduct1, 10);
+    Reservation reservation =
+        timedService.reserve(mockOrderOf(Map.of(mockProduct1, 3)), Duration.ofSeconds(30));
+
+    // Act
+    clock.advanceBy(Duration.ofSeconds(31));
+    boolean committed = timedService.commit(reservation);
+
+    // Assert
+    assertFalse(committed);
+    assertEquals(Reservation.State.EXPIRED, reservation.getState());
+    assertEquals(10, timedService.getQuantity(mockProduct1));
+  }
+
+  @Test
+  void shouldThrowExceptionWhenReservationTtlIsNotPositive() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              inventoryService.reserve(mockOrderOf(Map.of(mockProduct1, 1)), Duration.ZERO);
+            });
+
+    assertEquals("Reservation TTL must be positive", exception.getMessage());
+  }
+
+  @Test
+  void shouldReclaimExpiredReservationsInBackground() throws Exception {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 10);
+    inventoryService.reserve(mockOrderOf(Map.of(mockProduct1, 4)), Duration.ofMillis(50));
+
+    // Act
+    inventoryService.startReservationReaper();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (inventoryService.getQuantity(mockProduct1) != 10 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    inventoryService.stopReservationReaper();
+
+    // Assert
+    assertEquals(10, inventoryService.getQuantity(mockProduct1));
+    assertEquals(0, inventoryService.getActiveReservationCount());
+  }
+
+  @Test
+  void shouldRecordProcessOrderMetricsWhenEnabled() {
+    // Arrange
+    MetricsRegistry registry = new MetricsRegistry();
+    inventoryService.setMetricsRegistry(registry);
+    inventoryService.addProduct(mockProduct1, 5);
+
+    Order fulfillableOrder = Mockito.mock(Order.class);
+    when(fulfillableOrder.getItems()).thenReturn(Map.of(mockProduct1, 5));
+    Order unfulfillableOrder = Mockito.mock(Order.class);
+    when(unfulfillableOrder.getItems()).thenReturn(Map.of(mockProduct1, 1));
+
+    // Act
+    inventoryService.processOrder(fulfillableOrder);
+    inventoryService.processOrder(unfulfillableOrder);
+
+    // Assert
+    MetricsSnapshot snapshot = registry.snapshot();
+    assertEquals(2, snapshot.getHistogram("inventory.processOrder.latency").getCount());
+    assertEquals(1, snapshot.getCounter("inventory.processOrder.processed"));
+    assertEquals(1, snapshot.getCounter("inventory.processOrder.rejected"));
+  }
+
+  @Test
+  void shouldEmitFlightRecorderEventsForProcessedOrders(@TempDir Path recordingDirectory)
+      throws Exception {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 5);
+    Order fulfillableOrder = Mockito.mock(Order.class);
+    when(fulfillableOrder.getId()).thenReturn("order1");
+    when(fulfillableOrder.getItems()).thenReturn(Map.of(mockProduct1, 4));
+    Order unfulfillableOrder = Mockito.mock(Order.class);
+    when(unfulfillableOrder.getId()).thenReturn("order2");
+    when(unfulfillableOrder.getItems()).thenReturn(Map.of(mockProduct1, 3));
+    Path file = recordingDirectory.resolve("inventory.jfr");
+
+    // Act
+    try (Recording recording = new Recording()) {
+      recording.enable("org.ecommerce.InventoryProcess");
+      recording.start();
+      inventoryService.processOrder(fulfillableOrder);
+      inventoryService.processOrder(unfulfillableOrder);
+      recording.stop();
+      recording.dump(file);
+    }
+
+    // Assert
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    events.sort(Comparator.comparing(RecordedEvent::getStartTime));
+    assertEquals(2, events.size());
+    assertEquals("order1", events.get(0).getString("orderId"));
+    assertTrue(events.get(0).getBoolean("processed"));
+    assertEquals(4, events.get(0).getLong("itemCount"));
+    assertEquals("order2", events.get(1).getString("orderId"));
+    assertFalse(events.get(1).getBoolean("processed"));
+  }
+
+  @Test
+  void shouldProcessOrdersForCataloguedProducts() {
+    // Arrange
+    ProductCatalog catalog = new ProductCatalog();
+    Product laptop = catalog.register(new Product("prod7", "Laptop", 1000.0));
+    inventoryService.addProduct(laptop, 3);
+
+    Order order = Mockito.mock(Order.class);
+    when(order.getItems()).thenReturn(Map.of(laptop, 2));
+
+    // Act
+    boolean result = inventoryService.processOrder(order);
+
+    // Assert
+    assertTrue(result);
+    assertEquals(1, inventoryService.getQuantity(laptop));
+    assertEquals(1, inventoryService.getQuantity(new Product("prod7", "Laptop", 1000.0)));
+  }
+
+  @Test
+  void shouldRecoverStockLevelsFromLog(@TempDir Path logDirectory) throws Exception {
+    // Arrange
+    Product laptop = new Product("prod7", "Laptop", 1000.0);
+    Product phone = new Product("prod8", "Phone", 500.0);
+    Product cable = new Product("prod9", "Cable", 10.0);
+    User user = new User("user1", "shopper", "shopper@example.com");
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      InventoryService durable = new InventoryService(log);
+      durable.addProduct(laptop, 10);
+      durable.addProduct(phone, 5);
+      durable.addProduct(cable, 3);
+      durable.processOrder(orderOf(user, Map.of(laptop, 2, phone, 1)));
+      durable.processOrder(orderOf(user, Map.of(laptop, 1)));
+      Reservation released = durable.reserve(orderOf(user, Map.of(phone, 2)));
+      durable.release(released);
+      durable.removeProduct(cable);
+    }
+
+    // Act
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      InventoryService recovered = new InventoryService(log);
+
+      // Assert
+      assertEquals(7, recovered.getQuantity(laptop));
+      assertEquals(4, recovered.getQuantity(phone));
+      assertFalse(recovered.isInStock(cable));
+    }
+  }
+
+  @Test
+  void shouldRecoverFromSnapshotAndLaterMutations(@TempDir Path logDirectory) throws Exception {
+    // Arrange
+    Product laptop = new Product("prod7", "Laptop", 1000.0);
+    User user = new User("user1", "shopper", "shopper@example.com");
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      InventoryService durable = new InventoryService(log);
+      durable.addProduct(laptop, 10);
+      durable.processOrders(
+          List.of(orderOf(user, Map.of(laptop, 2)), orderOf(user, Map.of(laptop, 3))));
+      durable.takeSnapshot();
+      durable.processOrder(orderOf(user, Map.of(laptop, 1)));
+    }
+
+    // Act
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      InventoryService recovered = new InventoryService(log);
+
+      // Assert
+      assertEquals(1, log.getGeneration());
+      assertEquals(4, recovered.getQuantity(laptop));
+    }
+  }
+
+  @Test
+  void shouldNotLogRejectedOrders(@TempDir Path logDirectory) throws Exception {
+    // Arrange
+    Product laptop = new Product("prod7", "Laptop", 1000.0);
+    User user = new User("user1", "shopper", "shopper@example.com");
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      InventoryService durable = new InventoryService(log);
+      durable.addProduct(laptop, 1);
+      long syncs = log.getSyncCount();
+
+      // Act
+      boolean processed = durable.processOrder(orderOf(user, Map.of(laptop, 2)));
+
+      // Assert
+      assertFalse(processed);
+      assertEquals(syncs, log.getSyncCount());
+    }
+  }
+
+  @Test
+  void shouldReturnHeldStockWhenRecoveringAfterCrash(@TempDir Path logDirectory)
+      throws Exception {
+    // Arrange
+    Product laptop = new Product("prod7", "Laptop", 1000.0);
+    Product phone = new Product("prod8", "Phone", 500.0);
+    User user = new User("user1", "shopper", "shopper@example.com");
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      InventoryService durable = new InventoryService(log);
+      durable.addProduct(laptop, 10);
+      durable.addProduct(phone, 5);
+      Reservation committed = durable.reserve(orderOf(user, Map.of(laptop, 2)));
+      durable.reserve(orderOf(user, Map.of(laptop, 3, phone, 1)));
+      durable.takeSnapshot();
+      durable.commit(committed);
+      durable.reserve(orderOf(user, Map.of(phone, 2)));
+    }
+
+    // Act
+    int laptopAfterCrash;
+    int phoneAfterCrash;
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      InventoryService recovered = new InventoryService(log);
+      laptopAfterCrash = recovered.getQuantity(laptop);
+      phoneAfterCrash = recovered.getQuantity(phone);
+      recovered.reserve(orderOf(user, Map.of(laptop, 1)));
+    }
+    try (InventoryLog log = InventoryLog.open(logDirectory)) {
+      InventoryService recovered = new InventoryService(log);
+
+      // Assert
+      assertEquals(8, laptopAfterCrash);
+      assertEquals(5, phoneAfterCrash);
+      assertEquals(8, recovered.getQuantity(laptop));
+      assertEquals(5, recovered.getQuantity(phone));
+    }
+  }
+
+  @Test
+  void shouldLeaveInventoryUnchangedWhenLogRejectsMutation(@TempDir Path logDirectory)
+      throws Exception {
+    // Arrange
+    Product laptop = new Product("prod7", "Laptop", 1000.0);
+    User user = new User("user1", "shopper", "shopper@example.com");
+    InventoryLog log = InventoryLog.open(logDirectory);
+    InventoryService durable = new InventoryService(log);
+    durable.addProduct(laptop, 10);
+    Order order = orderOf(user, Map.of(laptop, 2));
+    log.close();
+
+    // Act
+    assertThrows(IllegalStateException.class, () -> durable.addProduct(laptop, 5));
+    assertThrows(IllegalStateException.class, () -> durable.removeProduct(laptop));
+    assertThrows(IllegalStateException.class, () -> durable.reserve(order));
+
+    // Assert
+    assertEquals(10, durable.getQuantity(laptop));
+    assertEquals(0, durable.getActiveReservationCount());
+  }
+
+  @Test
+  void shouldLeaveInventoryUnchangedWhenLogRejectsBatch(@TempDir Path logDirectory)
+      throws Exception {
+    // Arrange
+    Product laptop = new Product("prod7", "Laptop", 1000.0);
+    User user = new User("user1", "shopper", "shopper@example.com");
+    InventoryLog log = InventoryLog.open(logDirectory);
+    InventoryService durable = new InventoryService(log);
+    durable.addProduct(laptop, 10);
+    Order order = orderOf(user, Map.of(laptop, 3));
+    log.close();
+
+    // Act
+    assertThrows(IllegalStateException.class, () -> durable.processOrders(List.of(order)));
+
+    // Assert
+    assertEquals(10, durable.getQuantity(laptop));
+    assertEquals(Order.Status.PENDING, order.getStatus());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenSnapshottingWithoutLog() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalStateException.class,
+            () -> {
+              inventoryService.takeSnapshot();
+            });
+
+    assertEquals("Inventory has no log to snapshot", exception.getMessage());
+  }
+
+  @Test
+  void shouldCoalesceCrossingsIntoOneStockLevelEvent() throws InterruptedException {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 10);
+    List<StockLevelEvent> events = new ArrayList<>();
+    inventoryService.addStockLevelListener(events::add);
+    inventoryService.startStockLevelEvents(5, Duration.ofHours(1));
+
+    // Act
+    for (int i = 0; i < 10; i++) {
+      inventoryService.processOrder(mockOrderOf(Map.of(mockProduct1, 1)));
+    }
+    int published = inventoryService.publishStockLevelEvents();
+    inventoryService.stopStockLevelEvents();
+
+    // Assert
+    assertEquals(1, published);
+    assertEquals(1, events.size());
+    StockLevelEvent event = events.get(0);
+    assertSame(mockProduct1, event.getProduct());
+    assertEquals(StockLevelEvent.Level.IN_STOCK, event.getPreviousLevel());
+    assertEquals(StockLevelEvent.Level.OUT_OF_STOCK, event.getLevel());
+    assertEquals(0, event.getQuantity());
+    assertTrue(event.isOutOfStock());
+  }
+
+  @Test
+  void shouldPublishLowStockThenBackInStock() throws InterruptedException {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 10);
+    List<StockLevelEvent> events = new ArrayList<>();
+    inventoryService.addStockLevelListener(events::add);
+    inventoryService.startStockLevelEvents(5, Duration.ofHours(1));
+
+    // Act
+    inventoryService.processOrder(mockOrderOf(Map.of(mockProduct1, 7)));
+    inventoryService.publishStockLevelEvents();
+    inventoryService.processOrder(mockOrderOf(Map.of(mockProduct1, 3)));
+    inventoryService.publishStockLevelEvents();
+    inventoryService.addProduct(mockProduct1, 20);
+    inventoryService.stopStockLevelEvents();
+
+    // Assert
+    assertEquals(3, events.size());
+    assertTrue(events.get(0).isLowStock());
+    assertEquals(3, events.get(0).getQuantity());
+    assertTrue(events.get(1).isOutOfStock());
+    assertTrue(events.get(2).isBackInStock());
+    assertEquals(StockLevelEvent.Level.IN_STOCK, events.get(2).getLevel());
+    assertEquals(20, events.get(2).getQuantity());
+  }
+
+  @Test
+  void shouldNotPublishWhenLevelReturnsWithinWindow() throws InterruptedException {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 10);
+    List<StockLevelEvent> events = new ArrayList<>();
+    inventoryService.addStockLevelListener(events::add);
+    inventoryService.startStockLevelEvents(5, Duration.ofHours(1));
+
+    // Act
+    Reservation reservation = inventoryService.reserve(mockOrderOf(Map.of(mockProduct1, 10)));
+    inventoryService.release(reservation);
+    inventoryService.processOrder(mockOrderOf(Map.of(mockProduct1, 1)));
+    int published = inventoryService.publishStockLevelEvents();
+    inventoryService.stopStockLevelEvents();
+
+    // Assert
+    assertEquals(0, published);
+    assertTrue(events.isEmpty());
+  }
+
+  @Test
+  void shouldTrackBatchOrdersAndIgnoreRemovedProducts() throws InterruptedException {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 10);
+    inventoryService.addProduct(mockProduct2, 10);
+    List<StockLevelEvent> events = new ArrayList<>();
+    inventoryService.addStockLevelListener(events::add);
+    inventoryService.startStockLevelEvents(5, Duration.ofHours(1));
+
+    // Act
+    inventoryService.processOrders(
+        List.of(
+            mockOrderOf(Map.of(mockProduct1, 8)),
+            mockOrderOf(Map.of(mockProduct1, 2, mockProduct2, 6))));
+    inventoryService.removeProduct(mockProduct2);
+    inventoryService.stopStockLevelEvents();
+
+    // Assert
+    assertEquals(1, events.size());
+    assertSame(mockProduct1, events.get(0).getProduct());
+    assertTrue(events.get(0).isOutOfStock());
+  }
+
+  @Test
+  void shouldPublishBackInStockWhenRemovedProductIsAddedAgain() throws InterruptedException {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 10);
+    List<StockLevelEvent> events = new ArrayList<>();
+    inventoryService.addStockLevelListener(events::add);
+    inventoryService.startStockLevelEvents(5, Duration.ofHours(1));
+
+    // Act
+    inventoryService.removeProduct(mockProduct1);
+    inventoryService.publishStockLevelEvents();
+    inventoryService.addProduct(mockProduct1, 3);
+    inventoryService.addProduct(mockProduct2, 20);
+    inventoryService.stopStockLevelEvents();
+
+    // Assert
+    assertEquals(2, events.size());
+    StockLevelEvent readded =
+        events.stream().filter(e -> e.getProduct() == mockProduct1).findFirst().orElseThrow();
+    assertTrue(readded.isBackInStock());
+    assertTrue(readded.isLowStock());
+    assertEquals(3, readded.getQuantity());
+    StockLevelEvent added =
+        events.stream().filter(e -> e.getProduct() == mockProduct2).findFirst().orElseThrow();
+    assertTrue(added.isBackInStock());
+    assertEquals(StockLevelEvent.Level.IN_STOCK, added.getLevel());
+  }
+
+  @Test
+  void shouldCountFailedStockLevelDeliveries() throws InterruptedException {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 1);
+    StockLevelListener failing = Mockito.mock(StockLevelListener.class);
+    doThrow(new RuntimeException("listener failure")).when(failing).onStockLevelChange(any());
+    List<StockLevelEvent> events = new ArrayList<>();
+    inventoryService.addStockLevelListener(failing);
+    inventoryService.addStockLevelListener(events::add);
+    inventoryService.startStockLevelEvents(0, Duration.ofHours(1));
+
+    // Act
+    inventoryService.processOrder(mockOrderOf(Map.of(mockProduct1, 1)));
+    inventoryService.stopStockLevelEvents();
+
+    // Assert
+    assertEquals(1, inventoryService.getFailedStockLevelDeliveryCount());
+    assertEquals(1, events.size());
+  }
+
+  @Test
+  void shouldPublishStockLevelEventsInBackground() throws Exception {
+    // Arrange
+    inventoryService.addProduct(mockProduct1, 1);
+    List<StockLevelEvent> events = new CopyOnWriteArrayList<>();
+    inventoryService.addStockLevelListener(events::add);
+    inventoryService.startStockLevelEvents(0, Duration.ofMillis(20));
+
+    // Act
+    inventoryService.processOrder(mockOrderOf(Map.of(mockProduct1, 1)));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (events.isEmpty() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    inventoryService.stopStockLevelEvents();
+
+    // Assert
+    assertEquals(1, events.size());
+    assertTrue(events.get(0).isOutOfStock());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenLowStockThresholdIsNegative() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              inventoryService.startStockLevelEvents(-1, Duration.ofSeconds(1));
+            });
+
+    assertEquals("Low stock threshold cannot be negative", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenCoalescingWindowIsNotPositive() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              inventoryService.startStockLevelEvents(5, Duration.ZERO);
+            });
+
+    assertEquals("Coalescing window must be positive", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenStockLevelListenerIsNull() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              inventoryService.addStockLevelListener(null);
+            });
+
+    assertEquals("Listener cannot be null", exception.getMessage());
+  }
+
+  private Order mockOrderOf(Map<Product, Integer> items) {
+    Order order = Mockito.mock(Order.class);
+    when(order.getItems()).thenReturn(items);
+    return order;
+  }
+
+  private static Order orderOf(User user, Map<Product, Integer> items) {
+    ShoppingCart cart = new ShoppingCart(user);
+    items.forEach(cart::addProduct);
+    return new Order("order-" + System.nanoTime(), cart);
+  }
 }
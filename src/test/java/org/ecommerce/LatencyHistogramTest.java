@@ -0,0 +1,162 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+  @Test
+  void shouldReportEmptySnapshot() {
+    // Arrange
+    LatencyHistogram histogram = new LatencyHistogram("latency");
+
+    // Act
+    HistogramSnapshot snapshot = histogram.snapshot();
+
+    // Assert
+    assertEquals("latency", snapshot.getName());
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getMax());
+    assertEquals(0, snapshot.getValueAtPercentile(99.0));
+    assertEquals(0.0, snapshot.getMean(), 0.001);
+  }
+
+  @Test
+  void shouldTrackCountSumMinAndMax() {
+    // Arrange
+    LatencyHistogram histogram = new LatencyHistogram("latency");
+
+    // Act
+    histogram.record(10);
+    histogram.record(20);
+    histogram.record(3_000);
+
+    // Assert
+    HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(3, snapshot.getCount());
+    assertEquals(3_030, snapshot.getSum());
+    assertEquals(10, snapshot.getMin());
+    assertEquals(3_000, snapshot.getMax());
+    assertEquals(1_010.0, snapshot.getMean(), 0.001);
+  }
+
+  @Test
+  void shouldReportPercentilesWithinBucketPrecision() {
+    // Arrange
+    LatencyHistogram histogram = new LatencyHistogram("latency");
+    for (long value = 1; value <= 10_000; value++) {
+      histogram.record(value * 1_000);
+    }
+
+    // Act
+    HistogramSnapshot snapshot = histogram.snapshot();
+
+    // Assert
+    assertEquals(5_000_000, snapshot.getValueAtPercentile(50.0), 5_000_000 * 0.04);
+    assertEquals(9_900_000, snapshot.getValueAtPercentile(99.0), 9_900_000 * 0.04);
+    assertEquals(10_000_000, snapshot.getValueAtPercentile(100.0));
+  }
+
+  @Test
+  void shouldRecordSmallValuesExactly() {
+    // Arrange
+    LatencyHistogram histogram = new LatencyHistogram("latency");
+
+    // Act
+    histogram.record(7);
+    histogram.record(42);
+
+    // Assert
+    HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(7, snapshot.getValueAtPercentile(50.0));
+    assertEquals(42, snapshot.getValueAtPercentile(100.0));
+  }
+
+  @Test
+  void shouldClampOutOfRangeValues() {
+    // Arrange
+    LatencyHistogram histogram = new LatencyHistogram("latency");
+
+    // Act
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+
+    // Assert
+    HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(2, snapshot.getCount());
+    assertEquals(0, snapshot.getMin());
+    assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, snapshot.getMax());
+  }
+
+  @Test
+  void shouldMapEveryBucketBackToItsUpperBound() {
+    // Act & Assert
+    for (int index = 0; index < LatencyHistogram.BUCKET_COUNT; index++) {
+      long highest = LatencyHistogram.highestValueIn(index);
+      assertEquals(index, LatencyHistogram.indexOf(highest));
+      assertEquals(index + 1, LatencyHistogram.indexOf(highest + 1));
+    }
+  }
+
+  @Test
+  void shouldNotLoseRecordingsUnderConcurrency() throws Exception {
+    // Arrange
+    LatencyHistogram histogram = new LatencyHistogram("latency");
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+
+    // Act
+    for (int thread = 0; thread < 8; thread++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int i = 0; i < 10_000; i++) {
+                  histogram.record(i);
+                }
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    // Assert
+    assertEquals(80_000, histogram.snapshot().getCount());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenPercentileIsOutOfRange() {
+    // Arrange
+    HistogramSnapshot snapshot = new LatencyHistogram("latency").snapshot();
+
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              snapshot.getValueAtPercentile(101.0);
+            });
+
+    assertEquals("Percentile must be between 0 and 100", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenNameIsEmpty() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              new LatencyHistogram(" ");
+            });
+
+    assertEquals("Metric name cannot be null or empty", exception.getMessage());
+  }
+}
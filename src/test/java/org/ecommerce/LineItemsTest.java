@@ -0,0 +1,161 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LineItemsTest {
+
+  private LineItems lineItems;
+  private Product product1;
+  private Product product2;
+
+  @BeforeEach
+  void setUp() {
+    lineItems = new LineItems();
+    product1 = new Product("prod1", "Product 1", 10.0);
+    product2 = new Product("prod2", "Product 2", 2.5);
+  }
+
+  @Test
+  void shouldMergeQuantitiesForSameProduct() {
+    // Act
+    lineItems.add(product1, 2);
+    lineItems.add(product1, 3);
+
+    // Assert
+    assertEquals(1, lineItems.size());
+    assertEquals(5, lineItems.getQuantity(lineItems.indexOf(product1)));
+    assertEquals(50.0, lineItems.total(), 0.001);
+  }
+
+  @Test
+  void shouldKeepRunningTotalOnRemove() {
+    // Arrange
+    lineItems.add(product1, 2);
+    lineItems.add(product2, 4);
+
+    // Act
+    boolean removed = lineItems.remove(product1);
+
+    // Assert
+    assertTrue(removed);
+    assertFalse(lineItems.remove(product1));
+    assertEquals(-1, lineItems.indexOf(product1));
+    assertEquals(10.0, lineItems.total(), 0.001);
+  }
+
+  @Test
+  void shouldReflectPriceChangesInTotal() {
+    // Arrange
+    lineItems.add(product1, 3);
+
+    // Act
+    product1.setPrice(12.0);
+
+    // Assert
+    assertEquals(36.0, lineItems.total(), 0.001);
+  }
+
+  @Test
+  void shouldOnlyReadPricesOfRepricedLines() {
+    // Arrange
+    Product tracked = mock(Product.class);
+    when(tracked.getPriceMinorUnits()).thenReturn(1_000L);
+    lineItems.add(tracked, 2);
+    lineItems.add(product1, 1);
+
+    // Act
+    long unchanged = lineItems.totalMinorUnits();
+    lineItems.totalMinorUnits();
+    when(tracked.getPriceMinorUnits()).thenReturn(1_500L);
+    when(tracked.getPriceVersion()).thenReturn(1L);
+    long repriced = lineItems.totalMinorUnits();
+
+    // Assert
+    assertEquals(3_000L, unchanged);
+    assertEquals(4_000L, repriced);
+    verify(tracked, times(2)).getPriceMinorUnits();
+  }
+
+  @Test
+  void shouldRejectOverflowingLinesWithoutChangingTotal() {
+    // Arrange
+    Product expensive =
+        new Product(
+            "prod3",
+            "Yacht",
+            Money.ofMinorUnits(Long.MAX_VALUE / 4, Money.DEFAULT_CURRENCY),
+            null);
+    lineItems.add(expensive, 2);
+    lineItems.add(product2, Integer.MAX_VALUE);
+    long total = lineItems.totalMinorUnits();
+
+    // Act & Assert
+    assertThrows(ArithmeticException.class, () -> lineItems.add(expensive, 3));
+    assertThrows(ArithmeticException.class, () -> lineItems.add(product2, 1));
+    assertEquals(total, lineItems.totalMinorUnits());
+    assertEquals(2, lineItems.size());
+    assertEquals(2, lineItems.getQuantity(lineItems.indexOf(expensive)));
+    assertEquals(Integer.MAX_VALUE, lineItems.getQuantity(lineItems.indexOf(product2)));
+  }
+
+  @Test
+  void shouldGrowAndRemoveManyLines() {
+    // Arrange
+    List<Product> products = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      Product product = new Product("prod" + i, "Product " + i, 1.0);
+      products.add(product);
+      lineItems.add(product, 1);
+    }
+
+    // Act
+    for (int i = 0; i < 500; i += 2) {
+      lineItems.remove(products.get(i));
+    }
+
+    // Assert
+    assertEquals(250, lineItems.size());
+    assertEquals(250.0, lineItems.total(), 0.001);
+    for (int i = 0; i < 500; i++) {
+      assertEquals(i % 2 == 1, lineItems.indexOf(products.get(i)) >= 0);
+    }
+  }
+
+  @Test
+  void shouldExposeLinesAsMap() {
+    // Arrange
+    lineItems.add(product1, 2);
+    lineItems.add(product2, 1);
+
+    // Act
+    Map<Product, Integer> copy = new HashMap<>(lineItems.asMap());
+
+    // Assert
+    assertEquals(Map.of(product1, 2, product2, 1), copy);
+    assertEquals(2, lineItems.asMap().get(product1));
+    assertNull(lineItems.asMap().get("prod1"));
+  }
+
+  @Test
+  void shouldResetOnClear() {
+    // Arrange
+    lineItems.add(product1, 2);
+
+    // Act
+    lineItems.clear();
+
+    // Assert
+    assertTrue(lineItems.isEmpty());
+    assertEquals(-1, lineItems.indexOf(product1));
+    assertEquals(0.0, lineItems.total(), 0.001);
+  }
+}
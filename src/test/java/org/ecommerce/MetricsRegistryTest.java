@@ -0,0 +1,171 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MetricsRegistryTest {
+
+  private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+  private MetricsRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    registry = new MetricsRegistry(Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  void shouldReturnSameMetricForSameName() {
+    // Act & Assert
+    assertSame(registry.counter("orders"), registry.counter("orders"));
+    assertSame(registry.histogram("latency"), registry.histogram("latency"));
+  }
+
+  @Test
+  void shouldCaptureCountersAndHistogramsInSnapshot() {
+    // Arrange
+    registry.counter("orders").increment();
+    registry.counter("orders").add(2);
+    registry.histogram("latency").record(1_000);
+
+    // Act
+    MetricsSnapshot snapshot = registry.snapshot();
+
+    // Assert
+    assertEquals(NOW, snapshot.getCapturedAt());
+    assertEquals(3, snapshot.getCounter("orders"));
+    assertEquals(0, snapshot.getCounter("missing"));
+    assertEquals(1, snapshot.getHistogram("latency").getCount());
+    assertNull(snapshot.getHistogram("missing"));
+  }
+
+  @Test
+  void shouldPublishSnapshotToExporters() {
+    // Arrange
+    MetricsExporter exporter = Mockito.mock(MetricsExporter.class);
+    registry.addExporter(exporter);
+    registry.counter("orders").increment();
+
+    // Act
+    registry.publish();
+
+    // Assert
+    ArgumentCaptor<MetricsSnapshot> captor = ArgumentCaptor.forClass(MetricsSnapshot.class);
+    verify(exporter).export(captor.capture());
+    assertEquals(1, captor.getValue().getCounter("orders"));
+  }
+
+  @Test
+  void shouldIsolateFailingExporters() {
+    // Arrange
+    MetricsExporter failingExporter = Mockito.mock(MetricsExporter.class);
+    MetricsExporter exporter = Mockito.mock(MetricsExporter.class);
+    doThrow(new RuntimeException("exporter down")).when(failingExporter).export(any());
+    registry.addExporter(failingExporter);
+    registry.addExporter(exporter);
+
+    // Act
+    registry.publish();
+
+    // Assert
+    verify(exporter).export(any());
+    assertEquals(1, registry.getFailedExportCount());
+  }
+
+  @Test
+  void shouldStopPublishingToRemovedExporter() {
+    // Arrange
+    MetricsExporter exporter = Mockito.mock(MetricsExporter.class);
+    registry.addExporter(exporter);
+    registry.removeExporter(exporter);
+
+    // Act
+    registry.publish();
+
+    // Assert
+    verify(exporter, never()).export(any());
+  }
+
+  @Test
+  void shouldPublishPeriodically() throws Exception {
+    // Arrange
+    MetricsExporter exporter = Mockito.mock(MetricsExporter.class);
+    registry.addExporter(exporter);
+
+    // Act
+    registry.startPublishing(Duration.ofMillis(10));
+
+    // Assert
+    verify(exporter, timeout(1_000).atLeast(2)).export(any());
+    registry.stopPublishing();
+  }
+
+  @Test
+  void shouldThrowExceptionWhenCounterIncrementIsNegative() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              registry.counter("orders").add(-1);
+            });
+
+    assertEquals("Counter increment cannot be negative", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenPublishIntervalIsNotPositive() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              registry.startPublishing(Duration.ZERO);
+            });
+
+    assertEquals("Publish interval must be positive", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenExporterIsNull() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              registry.addExporter(null);
+            });
+
+    assertEquals("Exporter cannot be null", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenMetricNameIsNull() {
+    // Act & Assert
+    Exception counterException =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              registry.counter(null);
+            });
+    Exception histogramException =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              registry.histogram(null);
+            });
+
+    assertEquals("Metric name cannot be null or empty", counterException.getMessage());
+    assertEquals("Metric name cannot be null or empty", histogramException.getMessage());
+  }
+}
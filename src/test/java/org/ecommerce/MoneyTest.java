@@ -0,0 +1,86 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+  private static final Currency USD = Currency.getInstance("USD");
+  private static final Currency JPY = Currency.getInstance("JPY");
+
+  @Test
+  void shouldConvertAmountsToMinorUnits() {
+    // Act
+    Money dollars = Money.of(19.99, USD);
+    Money yen = Money.of(1500, JPY);
+
+    // Assert
+    assertEquals(1999L, dollars.getMinorUnits());
+    assertEquals(19.99, dollars.toDouble(), 0.0);
+    assertEquals(1500L, yen.getMinorUnits());
+  }
+
+  @Test
+  void shouldAddWithoutRoundingDrift() {
+    // Arrange
+    Money total = Money.zero(USD);
+
+    // Act
+    for (int i = 0; i < 10; i++) {
+      total = total.plus(Money.of(0.1, USD));
+    }
+
+    // Assert
+    assertEquals(Money.of(1.0, USD), total);
+    assertEquals("1.00 USD", total.toString());
+  }
+
+  @Test
+  void shouldRoundHalfToEvenWhenApplyingFactors() {
+    // Act
+    Money down = Money.ofMinorUnits(5L, USD).times(0.5);
+    Money up = Money.ofMinorUnits(15L, USD).times(0.5);
+
+    // Assert
+    assertEquals(2L, down.getMinorUnits());
+    assertEquals(8L, up.getMinorUnits());
+  }
+
+  @Test
+  void shouldMultiplyByQuantity() {
+    // Act
+    Money total = Money.of(2.5, USD).times(3);
+
+    // Assert
+    assertEquals(750L, total.getMinorUnits());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenCurrenciesDiffer() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              Money.of(1.0, USD).plus(Money.of(1, JPY));
+            });
+
+    assertEquals("Currencies do not match", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenAmountIsNotFinite() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              Money.of(Double.NaN, USD);
+            });
+
+    assertEquals("Amount must be finite", exception.getMessage());
+  }
+}
@@ -2,7 +2,15 @@ package org.ecommerce;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class NotificationServiceTest {
@@ -94,4 +102,244 @@ public class NotificationServiceTest {
     verify(mockEmailNotifier).onOrderStatusChange(mockOrder, Order.Status.SHIPPED);
     verify(mockEmailNotifier).onOrderStatusChange(mockOrder, Order.Status.DELIVERED);
   }
+
+  @Test
+  void shouldDeliverEventsAsynchronously() throws Exception {
+    // Arrange
+    NotificationService asyncService =
+        new NotificationService(16, 1, NotificationService.BackpressurePolicy.BLOCK);
+    asyncService.addObserver(mockEmailNotifier);
+
+    // Act
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.PROCESSING);
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+    asyncService.shutdown();
+
+    // Assert
+    assertTrue(asyncService.isAsync());
+    verify(mockEmailNotifier).onOrderStatusChange(mockOrder, Order.Status.PROCESSING);
+    verify(mockEmailNotifier).onOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldDeliverEventsInBatches() throws Exception {
+    // Arrange
+    CountDownLatch release = new CountDownLatch(1);
+    OrderObserver blockingObserver =
+        (order, newStatus) -> {
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        };
+    NotificationService asyncService =
+        new NotificationService(16, 8, NotificationService.BackpressurePolicy.BLOCK);
+    asyncService.addObserver(blockingObserver);
+    asyncService.addObserver(mockEmailNotifier);
+
+    // Act
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.PROCESSING);
+    while (asyncService.getPendingEventCount() > 0) {
+      Thread.onSpinWait();
+    }
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.DELIVERED);
+    release.countDown();
+    asyncService.shutdown();
+
+    // Assert
+    ArgumentCaptor<List<OrderStatusEvent>> batches = ArgumentCaptor.forClass(List.class);
+    verify(mockEmailNotifier, times(2)).onOrderStatusChanges(batches.capture());
+    assertEquals(1, batches.getAllValues().get(0).size());
+    assertEquals(2, batches.getAllValues().get(1).size());
+    assertEquals(Order.Status.DELIVERED, batches.getAllValues().get(1).get(1).getNewStatus());
+  }
+
+  @Test
+  void shouldDropNewestEventsWhenQueueIsFull() throws Exception {
+    // Arrange
+    CountDownLatch release = new CountDownLatch(1);
+    OrderObserver blockingObserver =
+        (order, newStatus) -> {
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        };
+    NotificationService asyncService =
+        new NotificationService(1, 1, NotificationService.BackpressurePolicy.DROP_NEWEST);
+    asyncService.addObserver(blockingObserver);
+
+    // Act
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.PROCESSING);
+    while (asyncService.getPendingEventCount() > 0) {
+      Thread.onSpinWait();
+    }
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.DELIVERED);
+    release.countDown();
+    asyncService.shutdown();
+
+    // Assert
+    assertEquals(1, asyncService.getDroppedEventCount());
+  }
+
+  @Test
+  void shouldRunOnCallerThreadWhenQueueIsFullAndPolicyIsCallerRuns() throws Exception {
+    // Arrange
+    CountDownLatch release = new CountDownLatch(1);
+    OrderObserver blockingObserver =
+        (order, newStatus) -> {
+          if (newStatus == Order.Status.PROCESSING) {
+            try {
+              release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        };
+    NotificationService asyncService =
+        new NotificationService(1, 1, NotificationService.BackpressurePolicy.CALLER_RUNS);
+    asyncService.addObserver(blockingObserver);
+    asyncService.addObserver(mockEmailNotifier);
+
+    // Act
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.PROCESSING);
+    while (asyncService.getPendingEventCount() > 0) {
+      Thread.onSpinWait();
+    }
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+    asyncService.notifyOrderStatusChange(mockOrder, Order.Status.DELIVERED);
+
+    // Assert
+    verify(mockEmailNotifier).onOrderStatusChange(mockOrder, Order.Status.DELIVERED);
+    release.countDown();
+    asyncService.shutdown();
+    assertEquals(0, asyncService.getDroppedEventCount());
+  }
+
+  @Test
+  void shouldDeliverEveryAcceptedEventWhenShutdownRacesProducers() throws Exception {
+    for (int round = 0; round < 50; round++) {
+      // Arrange
+      LongAdder delivered = new LongAdder();
+      LongAdder accepted = new LongAdder();
+      NotificationService asyncService =
+          new NotificationService(2, 1, NotificationService.BackpressurePolicy.BLOCK);
+      asyncService.addObserver((order, newStatus) -> delivered.increment());
+      CountDownLatch start = new CountDownLatch(1);
+      Thread[] producers = new Thread[4];
+      for (int i = 0; i < producers.length; i++) {
+        producers[i] =
+            Thread.ofVirtual()
+                .start(
+                    () -> {
+                      try {
+                        start.await();
+                        while (true) {
+                          asyncService.notifyOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+                          accepted.increment();
+                        }
+                      } catch (IllegalStateException | InterruptedException e) {
+                        // Shut down; stop producing.
+                      }
+                    });
+      }
+
+      // Act
+      start.countDown();
+      Thread.sleep(1);
+      asyncService.shutdown();
+      for (Thread producer : producers) {
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+      }
+
+      // Assert
+      for (Thread producer : producers) {
+        assertFalse(producer.isAlive());
+      }
+      assertEquals(accepted.sum(), delivered.sum());
+      assertEquals(0, asyncService.getPendingEventCount());
+    }
+  }
+
+  @Test
+  void shouldThrowExceptionWhenAsyncQueueCapacityIsNotPositive() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              new NotificationService(0, 1, NotificationService.BackpressurePolicy.BLOCK);
+            });
+
+    assertEquals("Queue capacity must be positive", exception.getMessage());
+  }
+
+  @Test
+  void shouldIgnoreDuplicateObserverRegistration() {
+    // Arrange
+    notificationService.addObserver(mockEmailNotifier);
+    notificationService.addObserver(mockEmailNotifier);
+
+    // Act
+    notificationService.notifyOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+
+    // Assert
+    verify(mockEmailNotifier, times(1)).onOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+  }
+
+  @Test
+  void shouldAllowRegistrationChangesDuringNotification() {
+    // Arrange
+    OrderObserver selfRemovingObserver =
+        new OrderObserver() {
+          @Override
+          public void onOrderStatusChange(Order order, Order.Status newStatus) {
+            notificationService.removeObserver(this);
+            notificationService.addObserver(mockSmsNotifier);
+          }
+        };
+    notificationService.addObserver(selfRemovingObserver);
+    notificationService.addObserver(mockEmailNotifier);
+
+    // Act
+    notificationService.notifyOrderStatusChange(mockOrder, Order.Status.PROCESSING);
+    notificationService.notifyOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+
+    // Assert
+    verify(mockEmailNotifier).onOrderStatusChange(mockOrder, Order.Status.PROCESSING);
+    verify(mockSmsNotifier, never()).onOrderStatusChange(mockOrder, Order.Status.PROCESSING);
+    verify(mockSmsNotifier).onOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+  }
+
+  @Test
+  void shouldNotifyObserversOfStatusTransitions() {
+    // Arrange
+    notificationService.addObserver(mockEmailNotifier);
+
+    // Act
+    notificationService.onStatusTransition(
+        mockOrder, Order.Status.PENDING, Order.Status.PROCESSING);
+
+    // Assert
+    verify(mockEmailNotifier).onOrderStatusChange(mockOrder, Order.Status.PROCESSING);
+  }
+
+  @Test
+  void shouldRecordFanOutLatencyWhenMetricsAreEnabled() {
+    // Arrange
+    MetricsRegistry registry = new MetricsRegistry();
+    notificationService.setMetricsRegistry(registry);
+    notificationService.addObserver(mockEmailNotifier);
+
+    // Act
+    notificationService.notifyOrderStatusChange(mockOrder, Order.Status.SHIPPED);
+
+    // Assert
+    assertEquals(1, registry.snapshot().getHistogram("notification.fanOut.latency").getCount());
+  }
 }
@@ -2,9 +2,22 @@ package org.ecommerce;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,13 +39,13 @@ public class OrderHistoryServiceTest {
     mockOrder1 = Mockito.mock(Order.class);
     when(mockOrder1.getId()).thenReturn("order1");
     when(mockOrder1.getUser()).thenReturn(mockUser);
-    when(mockOrder1.getTotal()).thenReturn(150.0);
+    when(mockOrder1.getTotalAmount()).thenReturn(Money.of(150.0, Money.DEFAULT_CURRENCY));
     when(mockOrder1.getStatus()).thenReturn(Order.Status.DELIVERED);
 
     mockOrder2 = Mockito.mock(Order.class);
     when(mockOrder2.getId()).thenReturn("order2");
     when(mockOrder2.getUser()).thenReturn(mockUser);
-    when(mockOrder2.getTotal()).thenReturn(250.0);
+    when(mockOrder2.getTotalAmount()).thenReturn(Money.of(250.0, Money.DEFAULT_CURRENCY));
     when(mockOrder2.getStatus()).thenReturn(Order.Status.SHIPPED);
   }
 
@@ -90,6 +103,27 @@ public class OrderHistoryServiceTest {
     assertEquals(400.0, totalSpent, 0.001);
   }
 
+  @Test
+  void shouldRejectDuplicateOrderWithoutDoubleCounting() {
+    // Arrange
+    orderHistoryService.addOrder(mockOrder1);
+
+    // Act
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              orderHistoryService.addOrder(mockOrder1);
+            });
+
+    // Assert
+    assertEquals("Order already exists in history", exception.getMessage());
+    assertEquals(List.of(mockOrder1), orderHistoryService.getUserOrders(mockUser));
+    assertEquals(150.0, orderHistoryService.getTotalUserSpending(mockUser), 0.001);
+    assertEquals(1, orderHistoryService.getUserOrderCount(mockUser, Order.Status.DELIVERED));
+    assertEquals(1, orderHistoryService.getOrdersByStatus(Order.Status.DELIVERED).size());
+  }
+
   @Test
   void shouldReturnEmptyListForNewUser() {
     // Arrange
@@ -115,4 +149,443 @@ public class OrderHistoryServiceTest {
 
     assertEquals("User cannot be null", exception.getMessage());
   }
+
+  @Test
+  void shouldCountOrdersByStatus() {
+    // Arrange
+    orderHistoryService.addOrder(mockOrder1);
+    orderHistoryService.addOrder(mockOrder2);
+
+    // Act & Assert
+    assertEquals(1, orderHistoryService.getUserOrderCount(mockUser, Order.Status.DELIVERED));
+    assertEquals(1, orderHistoryService.getUserOrderCount(mockUser, Order.Status.SHIPPED));
+    assertEquals(0, orderHistoryService.getUserOrderCount(mockUser, Order.Status.PENDING));
+  }
+
+  @Test
+  void shouldUpdateAggregatesWhenOrderStatusChanges() {
+    // Arrange
+    User user = new User("user1", "shopper", "shopper@example.com");
+    ShoppingCart cart = new ShoppingCart(user);
+    cart.addProduct(new Product("prod1", "Product", 50.0), 2);
+    Order order = new Order("order1", cart);
+    orderHistoryService.addOrder(order);
+
+    // Act
+    order.setStatus(Order.Status.PROCESSING);
+
+    // Assert
+    assertEquals(0, orderHistoryService.getUserOrderCount(user, Order.Status.PENDING));
+    assertEquals(1, orderHistoryService.getUserOrderCount(user, Order.Status.PROCESSING));
+    assertEquals(
+        List.of(order), orderHistoryService.getUserOrdersByStatus(user, Order.Status.PROCESSING));
+    assertEquals(100.0, orderHistoryService.getTotalUserSpending(user), 0.001);
+  }
+
+  @Test
+  void shouldReturnZeroSpendingForNewUser() {
+    // Arrange
+    User newUser = Mockito.mock(User.class);
+    when(newUser.getId()).thenReturn("newUser");
+
+    // Act & Assert
+    assertEquals(0.0, orderHistoryService.getTotalUserSpending(newUser), 0.001);
+  }
+
+  @Test
+  void shouldGetAllOrdersByStatusAcrossUsers() {
+    // Arrange
+    User otherUser = Mockito.mock(User.class);
+    when(otherUser.getId()).thenReturn("user456");
+    Order otherOrder = Mockito.mock(Order.class);
+    when(otherOrder.getUser()).thenReturn(otherUser);
+    when(otherOrder.getStatus()).thenReturn(Order.Status.SHIPPED);
+    when(otherOrder.getTotalAmount()).thenReturn(Money.zero(Money.DEFAULT_CURRENCY));
+    orderHistoryService.addOrder(mockOrder1);
+    orderHistoryService.addOrder(mockOrder2);
+    orderHistoryService.addOrder(otherOrder);
+
+    // Act
+    List<Order> shippedOrders = orderHistoryService.getOrdersByStatus(Order.Status.SHIPPED);
+
+    // Assert
+    assertEquals(List.of(mockOrder2, otherOrder), shippedOrders);
+  }
+
+  @Test
+  void shouldMoveOrderBetweenStatusIndexesOnTransition() {
+    // Arrange
+    User user = new User("user1", "shopper", "shopper@example.com");
+    ShoppingCart cart = new ShoppingCart(user);
+    cart.addProduct(new Product("prod1", "Product", 50.0), 1);
+    Order order = new Order("order1", cart);
+    orderHistoryService.addOrder(order);
+
+    // Act
+    order.setStatus(Order.Status.CANCELLED);
+
+    // Assert
+    assertTrue(orderHistoryService.getOrdersByStatus(Order.Status.PENDING).isEmpty());
+    assertEquals(List.of(order), orderHistoryService.getOrdersByStatus(Order.Status.CANCELLED));
+    assertTrue(orderHistoryService.getUserOrdersByStatus(user, Order.Status.PENDING).isEmpty());
+  }
+
+  @Test
+  void shouldRestoreHistoryFromOrderLog(@TempDir Path logDirectory) throws Exception {
+    // Arrange
+    User user = new User("user1", "shopper", "shopper@example.com");
+    ShoppingCart cart = new ShoppingCart(user);
+    cart.addProduct(new Product("prod1", "Product", 50.0), 2);
+    Order order = new Order("order1", cart);
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      OrderHistoryService persistentService = new OrderHistoryService(log);
+      persistentService.addOrder(order);
+      order.setStatus(Order.Status.PROCESSING);
+      order.setStatus(Order.Status.SHIPPED);
+    }
+
+    // Act
+    OrderHistoryService restoredService;
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      restoredService = new OrderHistoryService(log);
+    }
+
+    // Assert
+    assertEquals(1, restoredService.getUserOrders(user).size());
+    assertEquals(100.0, restoredService.getTotalUserSpending(user), 0.001);
+    assertEquals(1, restoredService.getUserOrderCount(user, Order.Status.SHIPPED));
+  }
+
+  @Test
+  void shouldKeepSpendingPerCurrency() {
+    // Arrange
+    User user = new User("user10", "traveller", "traveller@example.com");
+    Currency yen = Currency.getInstance("JPY");
+    ShoppingCart dollarCart = new ShoppingCart(user);
+    dollarCart.addProduct(new Product("prod1", "Book", 12.5), 2);
+    ShoppingCart yenCart = new ShoppingCart(user, yen);
+    yenCart.addProduct(new Product("prod2", "Tea", Money.of(500, yen), null), 3);
+
+    // Act
+    orderHistoryService.addOrder(new Order("order-usd", dollarCart));
+    orderHistoryService.addOrder(new Order("order-jpy", yenCart));
+
+    // Assert
+    assertEquals(
+        Money.of(25.0, Money.DEFAULT_CURRENCY),
+        orderHistoryService.getTotalUserSpendingAmount(user, Money.DEFAULT_CURRENCY));
+    assertEquals(
+        Money.of(1_500, yen), orderHistoryService.getTotalUserSpendingAmount(user, yen));
+    assertEquals(
+        Map.of(
+            Money.DEFAULT_CURRENCY,
+            Money.of(25.0, Money.DEFAULT_CURRENCY),
+            yen,
+            Money.of(1_500, yen)),
+        orderHistoryService.getTotalUserSpendingByCurrency(user));
+  }
+
+  @Test
+  void shouldRefuseSingleSpendingTotalAcrossCurrencies() {
+    // Arrange
+    User user = new User("user10", "traveller", "traveller@example.com");
+    Currency yen = Currency.getInstance("JPY");
+    ShoppingCart dollarCart = new ShoppingCart(user);
+    dollarCart.addProduct(new Product("prod1", "Book", 12.5), 2);
+    ShoppingCart yenCart = new ShoppingCart(user, yen);
+    yenCart.addProduct(new Product("prod2", "Tea", Money.of(500, yen), null), 3);
+    orderHistoryService.addOrder(new Order("order-usd", dollarCart));
+    orderHistoryService.addOrder(new Order("order-jpy", yenCart));
+
+    // Act
+    Exception exception =
+        assertThrows(
+            IllegalStateException.class,
+            () -> {
+              orderHistoryService.getTotalUserSpending(user);
+            });
+
+    // Assert
+    assertEquals("User has spending in more than one currency", exception.getMessage());
+  }
+
+  @Test
+  void shouldTotalSpendingInUsersOnlyCurrency() {
+    // Arrange
+    User user = new User("user11", "local", "local@example.com");
+    Currency yen = Currency.getInstance("JPY");
+    ShoppingCart yenCart = new ShoppingCart(user, yen);
+    yenCart.addProduct(new Product("prod2", "Tea", Money.of(500, yen), null), 3);
+    orderHistoryService.addOrder(new Order("order-jpy", yenCart));
+
+    // Act
+    Money total = orderHistoryService.getTotalUserSpendingAmount(user);
+
+    // Assert
+    assertEquals(Money.of(1_500, yen), total);
+  }
+
+  @Test
+  void shouldSumSpendingExactly() {
+    // Arrange
+    User user = new User("user9", "saver", "saver@example.com");
+    for (int i = 0; i < 10; i++) {
+      ShoppingCart cart = new ShoppingCart(user);
+      cart.addProduct(new Product("prod" + i, "Gum", 0.1), 1);
+      orderHistoryService.addOrder(new Order("order-exact-" + i, cart));
+    }
+
+    // Act
+    Money spending = orderHistoryService.getTotalUserSpendingAmount(user);
+
+    // Assert
+    assertEquals(100L, spending.getMinorUnits());
+    assertEquals(1.0, orderHistoryService.getTotalUserSpending(user), 0.0);
+  }
+
+  @Test
+  void shouldIngestConcurrentlyAcrossShards() throws Exception {
+    // Arrange
+    OrderHistoryService shardedService = new OrderHistoryService(8);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+
+    // Act
+    for (int t = 0; t < 8; t++) {
+      int thread = t;
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int i = 0; i < 250; i++) {
+                  User user = new User("user" + (i % 50), "shopper", "shopper@example.com");
+                  ShoppingCart cart = new ShoppingCart(user);
+                  cart.addProduct(new Product("prod" + i, "Product", 2.0), 1);
+                  shardedService.addOrder(new Order("order-" + thread + "-" + i, cart));
+                }
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    // Assert
+    assertEquals(2000, shardedService.getOrdersByStatus(Order.Status.PENDING).size());
+    User user = new User("user7", "shopper", "shopper@example.com");
+    assertEquals(40, shardedService.getUserOrders(user).size());
+    assertEquals(80.0, shardedService.getTotalUserSpending(user), 0.001);
+  }
+
+  @Test
+  void shouldRoundShardCountUpToPowerOfTwo() {
+    // Act
+    OrderHistoryService shardedService = new OrderHistoryService(5);
+
+    // Assert
+    assertEquals(8, shardedService.getShardCount());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenShardCountIsNotPositive() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              new OrderHistoryService(0);
+            });
+
+    assertEquals("Shard count must be positive", exception.getMessage());
+  }
+
+  private static List<Order> datedOrders(User user, int count, Instant start) {
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      ShoppingCart cart = new ShoppingCart(user);
+      cart.addProduct(new Product("prod" + i, "Product", 10.0), 1);
+      Clock clock = Clock.fixed(start.plusSeconds(3600L * i), ZoneOffset.UTC);
+      orders.add(new Order("order" + i, cart, clock));
+    }
+    return orders;
+  }
+
+  @Test
+  void shouldPageUserOrdersNewestFirst() {
+    // Arrange
+    User user = new User("user9", "pager", "pager@example.com");
+    List<Order> orders = datedOrders(user, 5, Instant.parse("2024-01-01T00:00:00Z"));
+    orders.forEach(orderHistoryService::addOrder);
+
+    // Act
+    OrderPage first = orderHistoryService.getUserOrdersPage(user, null, 2);
+    OrderPage second = orderHistoryService.getUserOrdersPage(user, first.getNextCursor(), 2);
+    OrderPage third = orderHistoryService.getUserOrdersPage(user, second.getNextCursor(), 2);
+
+    // Assert
+    assertEquals(List.of(orders.get(4), orders.get(3)), first.getOrders());
+    assertEquals(List.of(orders.get(2), orders.get(1)), second.getOrders());
+    assertEquals(List.of(orders.get(0)), third.getOrders());
+    assertFalse(third.hasNext());
+  }
+
+  @Test
+  void shouldKeepCursorStableWhenNewOrdersArrive() {
+    // Arrange
+    User user = new User("user9", "pager", "pager@example.com");
+    List<Order> orders = datedOrders(user, 4, Instant.parse("2024-01-01T00:00:00Z"));
+    orders.subList(0, 3).forEach(orderHistoryService::addOrder);
+    OrderPage first = orderHistoryService.getUserOrdersPage(user, null, 2);
+
+    // Act
+    orderHistoryService.addOrder(orders.get(3));
+    OrderPage second = orderHistoryService.getUserOrdersPage(user, first.getNextCursor(), 2);
+
+    // Assert
+    assertEquals(List.of(orders.get(0)), second.getOrders());
+  }
+
+  @Test
+  void shouldPageUserOrdersByStatus() {
+    // Arrange
+    User user = new User("user9", "pager", "pager@example.com");
+    List<Order> orders = datedOrders(user, 6, Instant.parse("2024-01-01T00:00:00Z"));
+    orders.forEach(orderHistoryService::addOrder);
+    orders.get(1).setStatus(Order.Status.CANCELLED);
+    orders.get(3).setStatus(Order.Status.CANCELLED);
+    orders.get(4).setStatus(Order.Status.CANCELLED);
+
+    // Act
+    OrderPage first =
+        orderHistoryService.getUserOrdersPage(user, Order.Status.CANCELLED, null, 2);
+    OrderPage second =
+        orderHistoryService.getUserOrdersPage(
+            user, Order.Status.CANCELLED, first.getNextCursor(), 2);
+
+    // Assert
+    assertEquals(List.of(orders.get(4), orders.get(3)), first.getOrders());
+    assertEquals(List.of(orders.get(1)), second.getOrders());
+    assertFalse(second.hasNext());
+  }
+
+  @Test
+  void shouldPageUserOrdersByStatusInTimelineOrder() {
+    // Arrange
+    User user = new User("user9", "pager", "pager@example.com");
+    List<Order> orders = datedOrders(user, 6, Instant.parse("2024-01-01T00:00:00Z"));
+    orders.forEach(orderHistoryService::addOrder);
+    orders.get(1).setStatus(Order.Status.CANCELLED);
+    orders.get(4).setStatus(Order.Status.CANCELLED);
+    orders.get(3).setStatus(Order.Status.CANCELLED);
+    OrderPage first =
+        orderHistoryService.getUserOrdersPage(user, Order.Status.CANCELLED, null, 2);
+
+    // Act
+    orders.get(2).setStatus(Order.Status.CANCELLED);
+    OrderPage second =
+        orderHistoryService.getUserOrdersPage(
+            user, Order.Status.CANCELLED, first.getNextCursor(), 2);
+
+    // Assert
+    assertEquals(List.of(orders.get(4), orders.get(3)), first.getOrders());
+    assertEquals(List.of(orders.get(2), orders.get(1)), second.getOrders());
+    assertFalse(second.hasNext());
+    assertEquals(
+        List.of(orders.get(4), orders.get(3), orders.get(2), orders.get(1)),
+        orderHistoryService
+            .streamUserOrders(user, Order.Status.CANCELLED)
+            .collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldStreamUserOrdersByDateRange() {
+    // Arrange
+    User user = new User("user9", "pager", "pager@example.com");
+    Instant start = Instant.parse("2024-01-01T00:00:00Z");
+    List<Order> orders = datedOrders(user, 10, start);
+    orders.forEach(orderHistoryService::addOrder);
+
+    // Act
+    List<Order> inRange =
+        orderHistoryService
+            .streamUserOrders(user, start.plusSeconds(3600L * 2), start.plusSeconds(3600L * 5))
+            .collect(Collectors.toList());
+
+    // Assert
+    assertEquals(List.of(orders.get(4), orders.get(3), orders.get(2)), inRange);
+  }
+
+  @Test
+  void shouldStreamUserOrdersLazily() {
+    // Arrange
+    User user = new User("user9", "pager", "pager@example.com");
+    List<Order> orders = datedOrders(user, 100, Instant.parse("2024-01-01T00:00:00Z"));
+    orders.forEach(orderHistoryService::addOrder);
+
+    // Act
+    List<Order> recent =
+        orderHistoryService.streamUserOrders(user).limit(3).collect(Collectors.toList());
+
+    // Assert
+    assertEquals(List.of(orders.get(99), orders.get(98), orders.get(97)), recent);
+    assertEquals(0, orderHistoryService.streamUserOrders(user, Order.Status.DELIVERED).count());
+  }
+
+  @Test
+  void shouldStreamUserOrdersByStatusAcrossChunks() {
+    // Arrange
+    User user = new User("user9", "pager", "pager@example.com");
+    List<Order> orders = datedOrders(user, 150, Instant.parse("2024-01-01T00:00:00Z"));
+    orders.forEach(orderHistoryService::addOrder);
+    orders.get(10).setStatus(Order.Status.CANCELLED);
+    List<Order> pending = new ArrayList<>(orders);
+    pending.remove(10);
+    Collections.reverse(pending);
+
+    // Act
+    List<Order> streamed =
+        orderHistoryService
+            .streamUserOrders(user, Order.Status.PENDING)
+            .collect(Collectors.toList());
+
+    // Assert
+    assertEquals(pending, streamed);
+    assertEquals(
+        List.of(orders.get(149), orders.get(148)),
+        orderHistoryService
+            .streamUserOrders(user, Order.Status.PENDING)
+            .limit(2)
+            .collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldThrowExceptionWhenCursorIsInvalid() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              orderHistoryService.getUserOrdersPage(mockUser, "not-a-cursor", 10);
+            });
+
+    assertEquals("Invalid cursor", exception.getMessage());
+  }
+
+  @Test
+  void shouldRecordQueryLatenciesWhenMetricsAreEnabled() {
+    // Arrange
+    MetricsRegistry registry = new MetricsRegistry();
+    orderHistoryService.setMetricsRegistry(registry);
+
+    // Act
+    orderHistoryService.addOrder(mockOrder1);
+    orderHistoryService.getUserOrders(mockUser);
+    orderHistoryService.getUserOrdersPage(mockUser, null, 10);
+    orderHistoryService.getOrdersByStatus(Order.Status.DELIVERED);
+
+    // Assert
+    MetricsSnapshot snapshot = registry.snapshot();
+    assertEquals(1, snapshot.getHistogram("orderHistory.addOrder.latency").getCount());
+    assertEquals(2, snapshot.getHistogram("orderHistory.userQuery.latency").getCount());
+    assertEquals(1, snapshot.getHistogram("orderHistory.statusQuery.latency").getCount());
+  }
 }
@@ -0,0 +1,204 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OrderLifecycleTest {
+
+  private OrderLifecycle lifecycle;
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    lifecycle = new OrderLifecycle(4);
+    user = new User("user1", "shopper", "shopper@example.com");
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    lifecycle.shutdown();
+  }
+
+  private Order newOrder(String id) {
+    ShoppingCart cart = new ShoppingCart(user);
+    cart.addProduct(new Product("prod-" + id, "Product", 10.0), 1);
+    return new Order(id, cart);
+  }
+
+  @Test
+  void shouldApplyValidTransitionAndPublishIt() throws Exception {
+    // Arrange
+    Order order = newOrder("order1");
+    OrderStatusListener subscriber = Mockito.mock(OrderStatusListener.class);
+    lifecycle.subscribe(subscriber);
+
+    // Act
+    Order.Status previous =
+        lifecycle.transition(order, Order.Status.PROCESSING).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    assertEquals(Order.Status.PENDING, previous);
+    assertEquals(Order.Status.PROCESSING, order.getStatus());
+    verify(subscriber).onStatusTransition(order, Order.Status.PENDING, Order.Status.PROCESSING);
+  }
+
+  @Test
+  void shouldRejectInvalidTransition() {
+    // Arrange
+    Order order = newOrder("order1");
+    OrderStatusListener subscriber = Mockito.mock(OrderStatusListener.class);
+    lifecycle.subscribe(subscriber);
+
+    // Act
+    CompletableFuture<Order.Status> result = lifecycle.transition(order, Order.Status.SHIPPED);
+
+    // Assert
+    ExecutionException exception =
+        assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+    assertEquals(Order.Status.PENDING, order.getStatus());
+    verifyNoInteractions(subscriber);
+  }
+
+  @Test
+  void shouldFeedHistoryAndNotificationsFromOneStream() throws Exception {
+    // Arrange
+    OrderHistoryService history = new OrderHistoryService();
+    NotificationService notifications = new NotificationService();
+    List<Order.Status> notified = new CopyOnWriteArrayList<>();
+    notifications.addObserver((order, status) -> notified.add(status));
+    lifecycle.subscribe(notifications);
+    Order order = newOrder("order1");
+    history.addOrder(order);
+
+    // Act
+    lifecycle.transition(order, Order.Status.PROCESSING);
+    lifecycle.transition(order, Order.Status.SHIPPED);
+    lifecycle.transition(order, Order.Status.DELIVERED).get(5, TimeUnit.SECONDS);
+
+    // Assert
+    assertEquals(
+        List.of(Order.Status.PROCESSING, Order.Status.SHIPPED, Order.Status.DELIVERED), notified);
+    assertEquals(1, history.getOrdersByStatus(Order.Status.DELIVERED).size());
+    assertEquals(0, history.getOrdersByStatus(Order.Status.PENDING).size());
+  }
+
+  @Test
+  void shouldKeepPerOrderOrderingAcrossShards() throws Exception {
+    // Arrange
+    OrderHistoryService history = new OrderHistoryService();
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      Order order = newOrder("order" + i);
+      history.addOrder(order);
+      orders.add(order);
+    }
+
+    // Act
+    List<CompletableFuture<Order.Status>> results = new ArrayList<>();
+    for (Order order : orders) {
+      lifecycle.transition(order, Order.Status.PROCESSING);
+      lifecycle.transition(order, Order.Status.SHIPPED);
+      results.add(lifecycle.transition(order, Order.Status.DELIVERED));
+    }
+    for (CompletableFuture<Order.Status> result : results) {
+      result.get(5, TimeUnit.SECONDS);
+    }
+
+    // Assert
+    assertEquals(200, history.getOrdersByStatus(Order.Status.DELIVERED).size());
+    assertEquals(0, lifecycle.getFailedDeliveryCount());
+  }
+
+  @Test
+  void shouldAnnounceLifecycleAndDirectTransitionsInAppliedOrder() throws Exception {
+    for (int round = 0; round < 50; round++) {
+      // Arrange
+      Order order = newOrder("order" + round);
+      List<Order.Status> announced = new CopyOnWriteArrayList<>();
+      order.addStatusListener((changed, previous, next) -> announced.add(next));
+
+      // Act
+      CompletableFuture<Order.Status> result = lifecycle.transition(order, Order.Status.PROCESSING);
+      while (order.getStatus() != Order.Status.PROCESSING) {
+        Thread.onSpinWait();
+      }
+      order.setStatus(Order.Status.SHIPPED);
+      result.get(5, TimeUnit.SECONDS);
+
+      // Assert
+      assertEquals(List.of(Order.Status.PROCESSING, Order.Status.SHIPPED), announced);
+    }
+  }
+
+  @Test
+  void shouldEitherAcceptOrRefuseTransitionsWhenShutdownRacesCallers() throws Exception {
+    for (int round = 0; round < 50; round++) {
+      // Arrange
+      OrderLifecycle racing = new OrderLifecycle(2);
+      List<CompletableFuture<Order.Status>> accepted = new CopyOnWriteArrayList<>();
+      List<RuntimeException> unexpected = new CopyOnWriteArrayList<>();
+      CountDownLatch start = new CountDownLatch(1);
+      Thread[] callers = new Thread[4];
+      for (int i = 0; i < callers.length; i++) {
+        String prefix = "order-" + i + "-";
+        callers[i] =
+            Thread.ofVirtual()
+                .start(
+                    () -> {
+                      try {
+                        start.await();
+                        for (int n = 0; ; n++) {
+                          Order order = newOrder(prefix + n);
+                          accepted.add(racing.transition(order, Order.Status.PROCESSING));
+                        }
+                      } catch (IllegalStateException | InterruptedException e) {
+                        // Shut down; stop submitting.
+                      } catch (RuntimeException e) {
+                        unexpected.add(e);
+                      }
+                    });
+      }
+
+      // Act
+      start.countDown();
+      Thread.sleep(1);
+      racing.shutdown();
+      for (Thread caller : callers) {
+        caller.join(TimeUnit.SECONDS.toMillis(5));
+      }
+
+      // Assert
+      assertEquals(List.of(), unexpected);
+      for (CompletableFuture<Order.Status> result : accepted) {
+        assertEquals(Order.Status.PENDING, result.getNow(null));
+      }
+    }
+  }
+
+  @Test
+  void shouldThrowExceptionWhenShardCountIsNotPositive() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              new OrderLifecycle(0);
+            });
+
+    assertEquals("Shard count must be positive", exception.getMessage());
+  }
+}
@@ -0,0 +1,182 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderLogTest {
+
+  @TempDir Path logDirectory;
+
+  private User user;
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    user = new User("user1", "shopper", "shopper@example.com", User.Type.PREMIUM);
+    product = new Product("prod1", "Product", 25.0);
+  }
+
+  private Order newOrder(String id, int quantity) {
+    ShoppingCart cart = new ShoppingCart(user);
+    cart.addProduct(product, quantity);
+    return new Order(id, cart);
+  }
+
+  @Test
+  void shouldReplayOrdersAfterReopening() throws Exception {
+    // Arrange
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      log.append(newOrder("order1", 2));
+      log.append(newOrder("order2", 1));
+      log.appendStatus("order1", Order.Status.PROCESSING);
+    }
+
+    // Act
+    List<Order> orders;
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      orders = log.replay();
+    }
+
+    // Assert
+    assertEquals(2, orders.size());
+    Order first = orders.get(0);
+    assertEquals("order1", first.getId());
+    assertEquals(Order.Status.PROCESSING, first.getStatus());
+    assertEquals(50.0, first.getTotal(), 0.001);
+    assertEquals("user1", first.getUser().getId());
+    assertEquals(User.Type.PREMIUM, first.getUser().getType());
+    assertSame(first.getUser(), orders.get(1).getUser());
+    assertEquals(2, first.getItems().values().iterator().next());
+    assertEquals(Order.Status.PENDING, orders.get(1).getStatus());
+  }
+
+  @Test
+  void shouldReadSingleOrderById() throws Exception {
+    // Arrange
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      log.append(newOrder("order1", 3));
+      log.appendStatus("order1", Order.Status.SHIPPED);
+
+      // Act
+      Order order = log.read("order1");
+
+      // Assert
+      assertEquals(Order.Status.SHIPPED, order.getStatus());
+      assertEquals(75.0, order.getTotal(), 0.001);
+      assertNull(log.read("missing"));
+    }
+  }
+
+  @Test
+  void shouldRollOverToNewSegmentWhenFull() throws Exception {
+    // Arrange
+    try (OrderLog log = OrderLog.open(logDirectory, 256)) {
+      // Act
+      for (int i = 0; i < 10; i++) {
+        log.append(newOrder("order" + i, 1));
+      }
+
+      // Assert
+      assertTrue(log.getSegmentCount() > 1);
+    }
+    try (OrderLog log = OrderLog.open(logDirectory, 256)) {
+      assertEquals(10, log.replay().size());
+    }
+  }
+
+  @Test
+  void shouldDiscardTornTailRecord() throws Exception {
+    // Arrange
+    long corruptedOffset;
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      log.append(newOrder("order1", 1));
+      corruptedOffset = log.append(newOrder("order2", 1));
+    }
+    try (RandomAccessFile file =
+        new RandomAccessFile(logDirectory.resolve("orders-00000000.log").toFile(), "rw")) {
+      file.seek(corruptedOffset + 20);
+      file.write(0x7F);
+    }
+
+    // Act
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      log.append(newOrder("order3", 1));
+
+      // Assert
+      List<Order> orders = log.replay();
+      assertEquals(2, orders.size());
+      assertEquals("order1", orders.get(0).getId());
+      assertEquals("order3", orders.get(1).getId());
+    }
+  }
+
+  @Test
+  void shouldThrowExceptionWhenAppendingNullOrder() throws Exception {
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      // Act & Assert
+      Exception exception =
+          assertThrows(
+              IllegalArgumentException.class,
+              () -> {
+                log.append(null);
+              });
+
+      assertEquals("Order cannot be null", exception.getMessage());
+    }
+  }
+
+  @Test
+  void shouldPersistProductCategory() throws Exception {
+    // Arrange
+    Product book = new Product("prod2", "Book", 15.0, "Books");
+    ShoppingCart cart = new ShoppingCart(user);
+    cart.addProduct(product, 1);
+    cart.addProduct(book, 1);
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      log.append(new Order("order1", cart));
+    }
+
+    // Act
+    List<Order> orders;
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      orders = log.replay();
+    }
+
+    // Assert
+    for (Product restored : orders.get(0).getItems().keySet()) {
+      assertEquals(restored.getId().equals("prod2") ? "Books" : null, restored.getCategory());
+    }
+    assertEquals(2, orders.get(0).getItems().size());
+  }
+
+  @Test
+  void shouldPersistOrderCreationTime() throws Exception {
+    // Arrange
+    Instant createdAt = Instant.parse("2024-03-01T12:30:15.123456789Z");
+    ShoppingCart cart = new ShoppingCart(user);
+    cart.addProduct(product, 1);
+    Order order = new Order("order1", cart, Clock.fixed(createdAt, ZoneOffset.UTC));
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      log.append(order);
+    }
+
+    // Act
+    Order restored;
+    try (OrderLog log = OrderLog.open(logDirectory)) {
+      restored = log.read("order1");
+    }
+
+    // Assert
+    assertEquals(createdAt, restored.getCreatedAt());
+  }
+}
@@ -2,10 +2,23 @@ package org.ecommerce;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Currency;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,7 +45,7 @@ public class OrderTest {
     when(mockUser.getId()).thenReturn("user123");
     when(mockCart.getUser()).thenReturn(mockUser);
     when(mockCart.getItems()).thenReturn(cartItems);
-    when(mockCart.calculateTotal()).thenReturn(400.0);
+    when(mockCart.calculateTotalAmount()).thenReturn(Money.of(400.0, Money.DEFAULT_CURRENCY));
   }
 
   @Test
@@ -57,6 +70,7 @@ public class OrderTest {
     Order order = new Order("order123", mockCart);
 
     // Act
+    order.setStatus(Order.Status.PROCESSING);
     order.setStatus(Order.Status.SHIPPED);
 
     // Assert
@@ -134,4 +148,169 @@ public class OrderTest {
 
     assertEquals("Status cannot be null", exception.getMessage());
   }
+
+  @Test
+  void shouldNotifyStatusListenersOnTransition() {
+    // Arrange
+    Order order = new Order("order123", mockCart);
+    OrderStatusListener listener = Mockito.mock(OrderStatusListener.class);
+    order.addStatusListener(listener);
+
+    // Act
+    order.setStatus(Order.Status.PROCESSING);
+    order.setStatus(Order.Status.PROCESSING);
+
+    // Assert
+    verify(listener, times(1))
+        .onStatusTransition(order, Order.Status.PENDING, Order.Status.PROCESSING);
+  }
+
+  @Test
+  void shouldNotNotifyRemovedStatusListener() {
+    // Arrange
+    Order order = new Order("order123", mockCart);
+    OrderStatusListener listener = Mockito.mock(OrderStatusListener.class);
+    order.addStatusListener(listener);
+    order.removeStatusListener(listener);
+
+    // Act
+    order.setStatus(Order.Status.PROCESSING);
+
+    // Assert
+    verify(listener, never()).onStatusTransition(any(), any(), any());
+  }
+
+  @Test
+  void shouldAllowOnlyLifecycleTransitions() {
+    // Act & Assert
+    assertTrue(Order.Status.PENDING.canTransitionTo(Order.Status.PROCESSING));
+    assertTrue(Order.Status.PENDING.canTransitionTo(Order.Status.CANCELLED));
+    assertTrue(Order.Status.PROCESSING.canTransitionTo(Order.Status.SHIPPED));
+    assertTrue(Order.Status.PROCESSING.canTransitionTo(Order.Status.CANCELLED));
+    assertTrue(Order.Status.SHIPPED.canTransitionTo(Order.Status.DELIVERED));
+    assertTrue(Order.Status.SHIPPED.canTransitionTo(Order.Status.SHIPPED));
+    assertFalse(Order.Status.PENDING.canTransitionTo(Order.Status.SHIPPED));
+    assertFalse(Order.Status.SHIPPED.canTransitionTo(Order.Status.CANCELLED));
+    assertFalse(Order.Status.DELIVERED.canTransitionTo(Order.Status.PENDING));
+    assertFalse(Order.Status.CANCELLED.canTransitionTo(Order.Status.PROCESSING));
+  }
+
+  @Test
+  void shouldThrowExceptionWhenTransitionIsInvalid() {
+    // Arrange
+    Order order = new Order("order123", mockCart);
+    OrderStatusListener listener = Mockito.mock(OrderStatusListener.class);
+    order.addStatusListener(listener);
+
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              order.setStatus(Order.Status.DELIVERED);
+            });
+
+    assertEquals("Cannot transition order from PENDING to DELIVERED", exception.getMessage());
+    assertEquals(Order.Status.PENDING, order.getStatus());
+    verifyNoInteractions(listener);
+  }
+
+  @Test
+  void shouldApplyCompetingTransitionsExactlyOnce() throws Exception {
+    for (int round = 0; round < 200; round++) {
+      // Arrange
+      Order order = new Order("order" + round, mockCart);
+      OrderHistoryService history = new OrderHistoryService();
+      history.addOrder(order);
+      List<Order.Status[]> transitions = new CopyOnWriteArrayList<>();
+      order.addStatusListener(
+          (changed, previous, next) -> transitions.add(new Order.Status[] {previous, next}));
+      CountDownLatch start = new CountDownLatch(1);
+      List<Thread> threads = new ArrayList<>();
+
+      // Act
+      for (int t = 0; t < 8; t++) {
+        Order.Status target = t % 2 == 0 ? Order.Status.PROCESSING : Order.Status.CANCELLED;
+        threads.add(
+            Thread.ofPlatform()
+                .start(
+                    () -> {
+                      try {
+                        start.await();
+                        order.setStatus(target);
+                      } catch (IllegalArgumentException | InterruptedException e) {
+                        // The losing side of a race is rejected as an invalid transition.
+                      }
+                    }));
+      }
+      start.countDown();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      // Assert
+      Order.Status expected = Order.Status.PENDING;
+      for (Order.Status[] transition : transitions) {
+        assertEquals(expected, transition[0]);
+        assertNotEquals(transition[0], transition[1]);
+        expected = transition[1];
+      }
+      assertEquals(expected, order.getStatus());
+      for (Order.Status status : Order.Status.values()) {
+        assertEquals(
+            status == order.getStatus() ? 1 : 0,
+            history.getUserOrderCount(mockUser, status));
+      }
+    }
+  }
+
+  @Test
+  void shouldTotalOrderInCartCurrency() {
+    // Arrange
+    Currency yen = Currency.getInstance("JPY");
+    ShoppingCart cart = new ShoppingCart(new User("user1", "shopper", "shopper@example.com"), yen);
+    cart.addProduct(new Product("prod1", "Tea", Money.of(500, yen), null), 3);
+
+    // Act
+    Order order = new Order("order123", cart);
+
+    // Assert
+    assertEquals(yen, order.getCurrency());
+    assertEquals(Money.of(1_500, yen), order.getTotalAmount());
+  }
+
+  @Test
+  void shouldRecordCreationTimeFromClock() {
+    // Arrange
+    Instant now = Instant.parse("2024-03-01T12:00:00Z");
+
+    // Act
+    Order order = new Order("order123", mockCart, Clock.fixed(now, ZoneOffset.UTC));
+
+    // Assert
+    assertEquals(now, order.getCreatedAt());
+  }
+
+  @Test
+  void shouldEmitFlightRecorderEventOnCreation(@TempDir Path recordingDirectory) throws Exception {
+    // Arrange
+    Path file = recordingDirectory.resolve("orders.jfr");
+
+    // Act
+    try (Recording recording = new Recording()) {
+      recording.enable("org.ecommerce.OrderCreated");
+      recording.start();
+      new Order("order123", mockCart);
+      recording.stop();
+      recording.dump(file);
+    }
+
+    // Assert
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    assertEquals(1, events.size());
+    assertEquals("order123", events.get(0).getString("orderId"));
+    assertEquals("user123", events.get(0).getString("userId"));
+    assertEquals(2, events.get(0).getInt("lineCount"));
+    assertEquals(40_000, events.get(0).getLong("totalMinorUnits"));
+  }
 }
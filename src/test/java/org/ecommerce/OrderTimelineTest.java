@@ -0,0 +1,118 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OrderTimelineTest {
+
+  private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+  private OrderTimeline timeline;
+
+  @BeforeEach
+  void setUp() {
+    timeline = new OrderTimeline();
+  }
+
+  private static Order orderAt(long hours) {
+    Order order = Mockito.mock(Order.class);
+    when(order.getCreatedAt()).thenReturn(START.plusSeconds(3600 * hours));
+    return order;
+  }
+
+  private static List<Order> drain(Iterator<Order> iterator) {
+    List<Order> orders = new ArrayList<>();
+    iterator.forEachRemaining(orders::add);
+    return orders;
+  }
+
+  @Test
+  void shouldIterateNewestFirst() {
+    // Arrange
+    Order first = orderAt(0);
+    Order second = orderAt(1);
+    Order third = orderAt(2);
+    timeline.append(first);
+    timeline.append(second);
+    timeline.append(third);
+
+    // Act
+    List<Order> orders = drain(timeline.newestFirst(Integer.MAX_VALUE, order -> true));
+
+    // Assert
+    assertEquals(List.of(third, second, first), orders);
+  }
+
+  @Test
+  void shouldNotSeeOrdersAppendedAfterSnapshot() {
+    // Arrange
+    Order first = orderAt(0);
+    timeline.append(first);
+    Iterator<Order> iterator = timeline.newestFirst(Integer.MAX_VALUE, order -> true);
+
+    // Act
+    for (int i = 1; i < 20; i++) {
+      timeline.append(orderAt(i));
+    }
+
+    // Assert
+    assertEquals(List.of(first), drain(iterator));
+    assertEquals(20, timeline.size());
+  }
+
+  @Test
+  void shouldSelectDateRangeFromChronologicalTimeline() {
+    // Arrange
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      orders.add(orderAt(i));
+      timeline.append(orders.get(i));
+    }
+
+    // Act
+    List<Order> inRange =
+        drain(timeline.newestFirst(START.plusSeconds(3600 * 7), START.plusSeconds(3600 * 9)));
+
+    // Assert
+    assertEquals(List.of(orders.get(8), orders.get(7)), inRange);
+  }
+
+  @Test
+  void shouldFilterDateRangeFromOutOfOrderTimeline() {
+    // Arrange
+    Order late = orderAt(5);
+    Order early = orderAt(1);
+    Order middle = orderAt(3);
+    timeline.append(late);
+    timeline.append(early);
+    timeline.append(middle);
+
+    // Act
+    List<Order> inRange = drain(timeline.newestFirst(START, START.plusSeconds(3600 * 4)));
+
+    // Assert
+    assertEquals(List.of(middle, early), inRange);
+  }
+
+  @Test
+  void shouldThrowExceptionWhenAppendingNullOrder() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              timeline.append(null);
+            });
+
+    assertEquals("Order cannot be null", exception.getMessage());
+  }
+}
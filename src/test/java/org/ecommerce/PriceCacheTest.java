@@ -0,0 +1,116 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceCacheTest {
+
+  private PriceCache cache;
+  private PricingTable table;
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    cache = new PriceCache(2);
+    table =
+        PricingTable.compile(
+            List.of(DiscountRule.forUserType(User.Type.PREMIUM, 10.0)),
+            PricingTable.StackingPolicy.BEST_DISCOUNT,
+            Instant.now());
+    product = new Product("prod1", "Laptop", 100.0);
+  }
+
+  @Test
+  void shouldServeRepeatedLookupsFromCache() {
+    // Act
+    double first = cache.get(product, User.Type.PREMIUM, table);
+    double second = cache.get(product, User.Type.PREMIUM, table);
+
+    // Assert
+    assertEquals(90.0, first, 0.001);
+    assertEquals(90.0, second, 0.001);
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  void shouldKeepSeparateEntriesPerUserType() {
+    // Act
+    double premium = cache.get(product, User.Type.PREMIUM, table);
+    double regular = cache.get(product, User.Type.REGULAR, table);
+
+    // Assert
+    assertEquals(90.0, premium, 0.001);
+    assertEquals(100.0, regular, 0.001);
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void shouldRecomputeWhenProductPriceChanges() {
+    // Arrange
+    cache.get(product, User.Type.PREMIUM, table);
+
+    // Act
+    product.setPrice(200.0);
+    double price = cache.get(product, User.Type.PREMIUM, table);
+
+    // Assert
+    assertEquals(180.0, price, 0.001);
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  void shouldRecomputeWhenPricingTableChanges() {
+    // Arrange
+    cache.get(product, User.Type.PREMIUM, table);
+    PricingTable promotional =
+        PricingTable.compile(
+            List.of(DiscountRule.forProduct("prod1", 50.0)),
+            PricingTable.StackingPolicy.BEST_DISCOUNT,
+            Instant.now());
+
+    // Act
+    double price = cache.get(product, User.Type.PREMIUM, promotional);
+
+    // Assert
+    assertEquals(50.0, price, 0.001);
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntries() {
+    // Arrange
+    Product second = new Product("prod2", "Mouse", 20.0);
+    Product third = new Product("prod3", "Keyboard", 40.0);
+    cache.get(product, User.Type.REGULAR, table);
+    cache.get(second, User.Type.REGULAR, table);
+    cache.get(product, User.Type.REGULAR, table);
+
+    // Act
+    cache.get(third, User.Type.REGULAR, table);
+    cache.get(product, User.Type.REGULAR, table);
+    cache.get(second, User.Type.REGULAR, table);
+
+    // Assert
+    assertEquals(2, cache.size());
+    assertEquals(2, cache.getHitCount());
+    assertEquals(4, cache.getMissCount());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenSizeIsNotPositive() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              new PriceCache(0);
+            });
+
+    assertEquals("Cache size must be positive", exception.getMessage());
+  }
+}
@@ -0,0 +1,104 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCatalogTest {
+
+  private ProductCatalog catalog;
+
+  @BeforeEach
+  void setUp() {
+    catalog = new ProductCatalog();
+  }
+
+  @Test
+  void shouldAssignDenseCatalogIdsStartingAtOne() {
+    // Arrange
+    Product laptop = new Product("prod1", "Laptop", 1000.0);
+    Product phone = new Product("prod2", "Phone", 500.0);
+
+    // Act
+    catalog.register(laptop);
+    catalog.register(phone);
+
+    // Assert
+    assertEquals(1, laptop.getCatalogId());
+    assertEquals(2, phone.getCatalogId());
+    assertEquals(2, catalog.size());
+  }
+
+  @Test
+  void shouldReturnCanonicalInstanceForDuplicateProduct() {
+    // Arrange
+    Product laptop = new Product("prod1", "Laptop", 1000.0);
+    Product duplicate = new Product("prod1", "Laptop", 1000.0);
+    catalog.register(laptop);
+
+    // Act
+    Product canonical = catalog.register(duplicate);
+
+    // Assert
+    assertSame(laptop, canonical);
+    assertEquals(0, duplicate.getCatalogId());
+    assertEquals(1, catalog.size());
+  }
+
+  @Test
+  void shouldLookUpProductsByIdAndCatalogId() {
+    // Arrange
+    Product laptop = new Product("prod1", "Laptop", 1000.0);
+    catalog.register(laptop);
+
+    // Act & Assert
+    assertSame(laptop, catalog.get("prod1"));
+    assertSame(laptop, catalog.get(laptop.getCatalogId()));
+    assertNull(catalog.get("unknown"));
+    assertNull(catalog.get(0));
+    assertNull(catalog.get(42));
+  }
+
+  @Test
+  void shouldGrowBeyondInitialCapacity() {
+    // Act
+    for (int i = 1; i <= 1_000; i++) {
+      catalog.register(new Product("prod" + i, "Product " + i, i));
+    }
+
+    // Assert
+    assertEquals(1_000, catalog.size());
+    assertEquals("prod1000", catalog.get(1_000).getId());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenProductBelongsToAnotherCatalog() {
+    // Arrange
+    Product laptop = new Product("prod1", "Laptop", 1000.0);
+    new ProductCatalog().register(laptop);
+
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              catalog.register(laptop);
+            });
+
+    assertEquals("Product is registered with another catalog", exception.getMessage());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenRegisteringNullProduct() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              catalog.register(null);
+            });
+
+    assertEquals("Product cannot be null", exception.getMessage());
+  }
+}
@@ -1,6 +1,9 @@
 package org.ecommerce;
 
 import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ProductTest {
@@ -34,6 +37,19 @@ public class ProductTest {
     assertEquals(newPrice, product.getPrice(), 0.001);
   }
 
+  @Test
+  void shouldBumpPriceVersionWhenPriceChanges() {
+    // Arrange
+    Product product = new Product("prod123", "Smartphone", 599.99);
+    long initialVersion = product.getPriceVersion();
+
+    // Act
+    product.setPrice(499.99);
+
+    // Assert
+    assertNotEquals(initialVersion, product.getPriceVersion());
+  }
+
   @Test
   void shouldThrowExceptionWhenIdIsNull() {
     // Act & Assert
@@ -88,4 +104,69 @@ public class ProductTest {
 
     assertEquals("Product price cannot be negative", exception.getMessage());
   }
+
+  @Test
+  void shouldCreateProductWithCategory() {
+    // Act
+    Product product = new Product("prod123", "Smartphone", 599.99, "electronics");
+
+    // Assert
+    assertEquals("electronics", product.getCategory());
+    assertNull(new Product("prod124", "Cable", 9.99).getCategory());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenCategoryIsEmpty() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              new Product("prod123", "Smartphone", 599.99, " ");
+            });
+
+    assertEquals("Product category cannot be empty", exception.getMessage());
+  }
+
+  @Test
+  void shouldKeepPriceInMinorUnits() {
+    // Arrange
+    Product product =
+        new Product("prod123", "Tea", Money.of(1200, Currency.getInstance("JPY")), "Drinks");
+
+    // Act
+    product.setPrice(1350.4);
+
+    // Assert
+    assertEquals(1350L, product.getPriceMinorUnits());
+    assertEquals(Currency.getInstance("JPY"), product.getCurrency());
+    assertEquals(1350.0, product.getPrice(), 0.0);
+  }
+
+  @Test
+  void shouldThrowExceptionWhenPriceCurrencyDiffers() {
+    // Arrange
+    Product product = new Product("prod123", "Smartphone", 599.99);
+
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              product.setPrice(Money.of(1000, Currency.getInstance("JPY")));
+            });
+
+    assertEquals("Price currency must match product currency", exception.getMessage());
+  }
+
+  @Test
+  void shouldNotHaveCatalogIdUntilRegistered() {
+    // Arrange
+    Product product = new Product("prod1", "Laptop", 1000.0);
+
+    // Act & Assert
+    assertEquals(0, product.getCatalogId());
+    new ProductCatalog().register(product);
+    assertEquals(1, product.getCatalogId());
+  }
 }
@@ -0,0 +1,119 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReservationWheelTest {
+
+  private ReservationWheel wheel;
+
+  @BeforeEach
+  void setUp() {
+    wheel = new ReservationWheel(100, 8, 0);
+  }
+
+  private static Reservation reservationExpiringAt(long id, long expiresAtMillis) {
+    return new Reservation(id, null, new String[0], new int[0], new int[0], expiresAtMillis);
+  }
+
+  @Test
+  void shouldExpireOnlyDueReservations() {
+    // Arrange
+    Reservation due = reservationExpiringAt(1, 250);
+    Reservation later = reservationExpiringAt(2, 650);
+    wheel.schedule(due);
+    wheel.schedule(later);
+    List<Reservation> expired = new ArrayList<>();
+
+    // Act
+    int count = wheel.advance(300, expired::add);
+
+    // Assert
+    assertEquals(1, count);
+    assertEquals(List.of(due), expired);
+    assertEquals(1, wheel.size());
+  }
+
+  @Test
+  void shouldKeepReservationsDueInLaterRotations() {
+    // Arrange
+    Reservation distant = reservationExpiringAt(1, 1_050);
+    wheel.schedule(distant);
+    List<Reservation> expired = new ArrayList<>();
+
+    // Act
+    wheel.advance(900, expired::add);
+    int beforeDeadline = expired.size();
+    wheel.advance(1_100, expired::add);
+
+    // Assert
+    assertEquals(0, beforeDeadline);
+    assertEquals(List.of(distant), expired);
+  }
+
+  @Test
+  void shouldExpireMidTickDeadlineAfterEarlyAdvance() {
+    // Arrange
+    Reservation due = reservationExpiringAt(1, 250);
+    wheel.schedule(due);
+    List<Reservation> expired = new ArrayList<>();
+
+    // Act
+    int beforeDeadline = wheel.advance(220, expired::add);
+    int afterDeadline = wheel.advance(300, expired::add);
+
+    // Assert
+    assertEquals(0, beforeDeadline);
+    assertEquals(1, afterDeadline);
+    assertEquals(List.of(due), expired);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void shouldCatchUpAfterLongPause() {
+    // Arrange
+    for (int i = 0; i < 20; i++) {
+      wheel.schedule(reservationExpiringAt(i, 100L * (i + 1)));
+    }
+
+    // Act
+    int count = wheel.advance(10_000, reservation -> {});
+
+    // Assert
+    assertEquals(20, count);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void shouldNotExpireCancelledReservations() {
+    // Arrange
+    Reservation reservation = reservationExpiringAt(1, 150);
+    wheel.schedule(reservation);
+
+    // Act
+    wheel.cancel(reservation);
+    int count = wheel.advance(500, r -> fail("Cancelled reservation expired"));
+
+    // Assert
+    assertEquals(0, count);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenTickIsNotPositive() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              new ReservationWheel(0, 8, 0);
+            });
+
+    assertEquals("Tick duration must be positive", exception.getMessage());
+  }
+}
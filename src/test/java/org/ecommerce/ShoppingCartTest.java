@@ -3,6 +3,7 @@ package org.ecommerce;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import java.util.Currency;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,9 +24,9 @@ public class ShoppingCartTest {
 
     when(mockUser.getId()).thenReturn("user123");
     when(mockProduct1.getId()).thenReturn("prod1");
-    when(mockProduct1.getPrice()).thenReturn(100.0);
+    when(mockProduct1.getPriceMinorUnits()).thenReturn(10_000L);
     when(mockProduct2.getId()).thenReturn("prod2");
-    when(mockProduct2.getPrice()).thenReturn(200.0);
+    when(mockProduct2.getPriceMinorUnits()).thenReturn(20_000L);
 
     cart = new ShoppingCart(mockUser);
   }
@@ -171,4 +172,95 @@ public class ShoppingCartTest {
 
     assertEquals("Product not found in cart", exception.getMessage());
   }
+
+  @Test
+  void shouldRecalculateTotalWhenPriceChanges() {
+    // Arrange
+    cart.addProduct(mockProduct1, 2);
+    cart.calculateTotal();
+
+    // Act
+    when(mockProduct1.getPriceMinorUnits()).thenReturn(15_000L);
+    when(mockProduct1.getPriceVersion()).thenReturn(1L);
+    double total = cart.calculateTotal();
+
+    // Assert
+    assertEquals(300.0, total, 0.001);
+  }
+
+  @Test
+  void shouldTotalInExactMinorUnits() {
+    // Arrange
+    ShoppingCart exactCart = new ShoppingCart(mockUser);
+    exactCart.addProduct(new Product("prod3", "Sticker", 0.1), 3);
+    exactCart.addProduct(new Product("prod4", "Pen", 0.2), 1);
+
+    // Act
+    Money total = exactCart.calculateTotalAmount();
+
+    // Assert
+    assertEquals(50L, total.getMinorUnits());
+    assertEquals(0.5, exactCart.calculateTotal(), 0.0);
+  }
+
+  @Test
+  void shouldThrowExceptionWhenProductCurrencyDiffers() {
+    // Arrange
+    Product yenProduct =
+        new Product("prod3", "Tea", Money.of(500, Currency.getInstance("JPY")), null);
+
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              cart.addProduct(yenProduct, 1);
+            });
+
+    assertEquals("Product currency does not match cart currency", exception.getMessage());
+  }
+
+  @Test
+  void shouldFoldDuplicateProductInstancesIntoOneLine() {
+    // Arrange
+    ProductCatalog catalog = new ProductCatalog();
+    Product laptop = catalog.register(new Product("prod9", "Laptop", 100.0));
+    ShoppingCart catalogCart = new ShoppingCart(mockUser, catalog);
+
+    // Act
+    catalogCart.addProduct(laptop, 1);
+    catalogCart.addProduct(new Product("prod9", "Laptop", 100.0), 2);
+
+    // Assert
+    assertEquals(1, catalogCart.getItems().size());
+    assertEquals(3, catalogCart.getItems().get(laptop));
+    assertEquals(300.0, catalogCart.calculateTotal(), 0.001);
+  }
+
+  @Test
+  void shouldRemoveProductThroughDuplicateInstance() {
+    // Arrange
+    ProductCatalog catalog = new ProductCatalog();
+    ShoppingCart catalogCart = new ShoppingCart(mockUser, catalog);
+    catalogCart.addProduct(new Product("prod9", "Laptop", 100.0), 1);
+
+    // Act
+    catalogCart.removeProduct(new Product("prod9", "Laptop", 100.0));
+
+    // Assert
+    assertTrue(catalogCart.getItems().isEmpty());
+  }
+
+  @Test
+  void shouldThrowExceptionWhenCatalogIsNull() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              new ShoppingCart(mockUser, (ProductCatalog) null);
+            });
+
+    assertEquals("Catalog cannot be null", exception.getMessage());
+  }
 }
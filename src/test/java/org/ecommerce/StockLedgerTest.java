@@ -0,0 +1,152 @@
+package org.ecommerce;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StockLedgerTest {
+
+  private StockLedger ledger;
+
+  @BeforeEach
+  void setUp() {
+    ledger = new StockLedger();
+  }
+
+  @Test
+  void shouldInternSameSlotForSameProductId() {
+    // Act
+    int first = ledger.slotFor("prod1");
+    int second = ledger.slotFor("prod1");
+    int other = ledger.slotFor("prod2");
+
+    // Assert
+    assertEquals(first, second);
+    assertNotEquals(first, other);
+    assertEquals(2, ledger.size());
+  }
+
+  @Test
+  void shouldReturnNegativeSlotForUnknownProduct() {
+    // Act & Assert
+    assertEquals(-1, ledger.slotOf("unknown"));
+  }
+
+  @Test
+  void shouldAddAndReadQuantities() {
+    // Arrange
+    int slot = ledger.slotFor("prod1");
+
+    // Act
+    ledger.add(slot, 10);
+    ledger.add(slot, 5);
+
+    // Assert
+    assertEquals(15, ledger.get(slot));
+  }
+
+  @Test
+  void shouldDecrementOnlyWhenEnoughStock() {
+    // Arrange
+    int slot = ledger.slotFor("prod1");
+    ledger.add(slot, 3);
+
+    // Act & Assert
+    assertTrue(ledger.tryDecrement(slot, 2));
+    assertFalse(ledger.tryDecrement(slot, 2));
+    assertEquals(1, ledger.get(slot));
+  }
+
+  @Test
+  void shouldGrowBeyondSingleChunk() {
+    // Arrange
+    List<Integer> slots = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      slots.add(ledger.slotFor("prod" + i));
+    }
+
+    // Act
+    for (int slot : slots) {
+      ledger.add(slot, slot);
+    }
+
+    // Assert
+    for (int slot : slots) {
+      assertEquals(slot, ledger.get(slot));
+    }
+  }
+
+  @Test
+  void shouldNotLoseDecrementsUnderContention() throws Exception {
+    // Arrange
+    int slot = ledger.slotFor("prod1");
+    ledger.add(slot, 40000);
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] =
+          new Thread(
+              () -> {
+                for (int j = 0; j < 5000; j++) {
+                  ledger.tryDecrement(slot, 1);
+                }
+              });
+    }
+
+    // Act
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // Assert
+    assertEquals(0, ledger.get(slot));
+  }
+
+  @Test
+  void shouldThrowExceptionForUnallocatedSlot() {
+    // Act & Assert
+    Exception exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> {
+              ledger.get(5000);
+            });
+
+    assertEquals("Slot has not been allocated", exception.getMessage());
+  }
+
+  @Test
+  void shouldResolveCataloguedProductToSameSlotAsItsId() {
+    // Arrange
+    Product laptop = new ProductCatalog().register(new Product("prod1", "Laptop", 1000.0));
+    int slot = ledger.slotFor("prod1");
+
+    // Act & Assert
+    assertEquals(slot, ledger.slotOf(laptop));
+    assertEquals(slot, ledger.slotOf(laptop));
+    assertEquals(slot, ledger.slotFor(laptop));
+  }
+
+  @Test
+  void shouldResolveProductsFromDifferentCatalogsByTheirIds() {
+    // Arrange
+    Product laptop = new ProductCatalog().register(new Product("prod1", "Laptop", 1000.0));
+    Product phone = new ProductCatalog().register(new Product("prod2", "Phone", 500.0));
+
+    // Act
+    int laptopSlot = ledger.slotFor(laptop);
+    int phoneSlot = ledger.slotFor(phone);
+
+    // Assert
+    assertEquals(laptop.getCatalogId(), phone.getCatalogId());
+    assertNotEquals(laptopSlot, phoneSlot);
+    assertEquals(laptopSlot, ledger.slotOf(laptop));
+    assertEquals(phoneSlot, ledger.slotOf(phone));
+  }
+}